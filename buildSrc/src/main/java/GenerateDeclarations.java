@@ -0,0 +1,128 @@
+/* (C) 2025 */
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import javax.inject.*;
+
+import org.gradle.api.*;
+import org.gradle.api.file.*;
+import org.gradle.api.tasks.*;
+import org.gradle.process.*;
+
+/**
+ * Runs the core Main over a Config file. The scanned jars, the generator itself, the config and
+ * the base manifests it excludes are inputs. The output directory and the manifest it writes are
+ * the outputs, so unchanged builds are up to date and the result can come from the build cache.
+ * Relative paths in the config resolve against the project directory.
+ */
+@CacheableTask
+public abstract class GenerateDeclarations extends DefaultTask {
+  // classes to declare, replaces the classpath of the config
+  @Classpath
+  public abstract ConfigurableFileCollection getClasspath();
+
+  // the core module and what it needs at runtime
+  @Classpath
+  public abstract ConfigurableFileCollection getToolClasspath();
+
+  @InputFile
+  @PathSensitive(PathSensitivity.NONE)
+  public abstract RegularFileProperty getConfig();
+
+  // the exclude manifests of the config, a delta is stale once its base changes
+  @InputFiles
+  @PathSensitive(PathSensitivity.NONE)
+  public abstract ConfigurableFileCollection getExclude();
+
+  // the manifest key of the config, written for deltas built on this output
+  @OutputFile
+  @org.gradle.api.tasks.Optional
+  public abstract RegularFileProperty getManifest();
+
+  @OutputDirectory
+  public abstract DirectoryProperty getOutputDir();
+
+  @Inject
+  protected abstract ExecOperations getExecOperations();
+
+  @Inject
+  protected abstract FileSystemOperations getFileSystemOperations();
+
+  @Inject
+  protected abstract ProjectLayout getLayout();
+
+  public GenerateDeclarations() {
+    getExclude().from(getConfig().map(file -> {
+      var res = new ArrayList<File>();
+      for (var s : list(load(file.getAsFile()).getProperty("exclude")))
+        res.add(resolve(s));
+      return res;
+    }));
+    getManifest().fileProvider(getConfig().map(file -> {
+      var s = load(file.getAsFile()).getProperty("manifest");
+      return s == null ? null : resolve(s.strip());
+    }));
+  }
+
+  public static Properties load(File file) {
+    var props = new Properties();
+    try (var in = Files.newBufferedReader(file.toPath())) {
+      props.load(in);
+    } catch (IOException err) {
+      throw new java.io.UncheckedIOException(err);
+    }
+    return props;
+  }
+
+  public static List<String> list(String value) {
+    var res = new ArrayList<String>();
+    if (value == null)
+      return res;
+    for (var s : value.split(","))
+      if (!s.isBlank())
+        res.add(s.strip());
+    return res;
+  }
+
+  // like project.file, the written config lives in the temporary dir
+  public File resolve(String path) {
+    var file = new File(path);
+    if (file.isAbsolute())
+      return file;
+    return new File(getLayout().getProjectDirectory().getAsFile(), path);
+  }
+
+  @TaskAction
+  public void generate() throws IOException {
+    var props = load(getConfig().get().getAsFile());
+    var dir = getOutputDir().get().getAsFile();
+    // files of types that are gone would otherwise be cached with the new output
+    getFileSystemOperations().delete(spec -> spec.delete(dir));
+    dir.mkdirs();
+    var classpath = new StringJoiner(File.pathSeparator);
+    for (var file : getClasspath())
+      classpath.add(file.getAbsolutePath());
+    props.setProperty("classpath", classpath.toString());
+    var split = Boolean.parseBoolean(props.getProperty("split", "false").strip());
+    props.setProperty("output",
+        split ? dir.getAbsolutePath() : new File(dir, "index.d.ts").getAbsolutePath());
+    if (props.getProperty("cache") != null)
+      props.setProperty("cache", resolve(props.getProperty("cache").strip()).getAbsolutePath());
+    var exclude = new StringJoiner(",");
+    for (var file : getExclude())
+      exclude.add(file.getAbsolutePath());
+    props.setProperty("exclude", exclude.toString());
+    if (getManifest().isPresent())
+      props.setProperty("manifest", getManifest().get().getAsFile().getAbsolutePath());
+    var config = new File(getTemporaryDir(), "config.properties");
+    try (var out = Files.newBufferedWriter(config.toPath())) {
+      props.store(out, null);
+    }
+    getExecOperations().javaexec(spec -> {
+      spec.setClasspath(getToolClasspath());
+      spec.getMainClass().set("com.github.emmmm9o.javatypes.Main");
+      spec.args(config.getAbsolutePath());
+    });
+  }
+}
@@ -0,0 +1,262 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Writes the parsed model in the JTIR binary format, read back by BinaryReader. Reflection
+ * handles (classRef, typeRef, mref, cref) are not stored.
+ *
+ * Every number is an unsigned LEB128 varint. A string is an index into the string table, a type
+ * or type use is an index into its table, and optional values are stored as index + 1 with 0
+ * for null. Lists are stored as size + 1 (0 for null) followed by their elements. Modifiers are a
+ * bit mask of JavaModifier ordinals, + 1 as well.
+ *
+ * <pre>
+ * file:    "JTIR" version strings types uses type* use* map values
+ * strings: count (length utf8-bytes)*
+ * types:   count, uses: count
+ * type:    name? classpath? modifiers flags(inner, interface, enum) generics superType?
+ *          interfaces fields methods constructors classes(type list)
+ * use:     type? typeG? typeC? generics upper lower
+ * field:   name? type? modifiers flags(nullable, enumConstant, synthetic)
+ * method:  name? result? modifiers flags(varArgs, nullable, synthetic) generics params
+ * param:   name? type? flags(nullable)
+ * map:     count (key type)*, values: type list
+ * </pre>
+ */
+public class BinaryGenerator implements Generator {
+  public static final byte[] magic = {'J', 'T', 'I', 'R'};
+  public static final int version = 1;
+
+  public static class Output {
+    public ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    public void varint(int value) {
+      while ((value & ~0x7f) != 0) {
+        out.write((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      out.write(value);
+    }
+  }
+
+  public Map<String, Integer> strings = new LinkedHashMap<>();
+  public Map<JavaType, Integer> types = new IdentityHashMap<>();
+  public Map<JavaTypeUse, Integer> uses = new IdentityHashMap<>();
+  public List<JavaType> typeList = new ArrayList<>();
+  public List<JavaTypeUse> useList = new ArrayList<>();
+
+  public void add(JavaType type) {
+    if (type != null && !types.containsKey(type)) {
+      types.put(type, typeList.size());
+      typeList.add(type);
+    }
+  }
+
+  public void add(JavaTypeUse use) {
+    if (use != null && !uses.containsKey(use)) {
+      uses.put(use, useList.size());
+      useList.add(use);
+    }
+  }
+
+  public void add(Collection<JavaTypeUse> list) {
+    if (list != null)
+      for (var use : list)
+        add(use);
+  }
+
+  public void add(JavaMethod method) {
+    add(method.result);
+    add(method.generics);
+    if (method.paramaters != null)
+      for (var p : method.paramaters)
+        add(p.type);
+  }
+
+  // breadth first over both tables, uses are cached per reflect type so they can form cycles
+  public void collect(Map<String, JavaType> map, List<JavaType> values) {
+    strings.clear();
+    types.clear();
+    uses.clear();
+    typeList.clear();
+    useList.clear();
+    for (var v : map.values())
+      add(v);
+    for (var v : values)
+      add(v);
+    int t = 0, u = 0;
+    while (t < typeList.size() || u < useList.size()) {
+      for (; t < typeList.size(); t++) {
+        var type = typeList.get(t);
+        add(type.generics);
+        add(type.superType);
+        add(type.interfaces);
+        if (type.fields != null)
+          for (var f : type.fields)
+            add(f.type);
+        if (type.methods != null)
+          for (var m : type.methods)
+            add(m);
+        if (type.constructors != null)
+          for (var m : type.constructors)
+            add(m);
+        if (type.classes != null)
+          for (var c : type.classes)
+            add(c);
+      }
+      for (; u < useList.size(); u++) {
+        var use = useList.get(u);
+        add(use.type);
+        add(use.typeC);
+        add(use.generics);
+        add(use.upper);
+        add(use.lower);
+      }
+    }
+  }
+
+  public int string(String str) {
+    if (str == null)
+      return 0;
+    return strings.computeIfAbsent(str, k -> strings.size()) + 1;
+  }
+
+  public static int modifiers(Set<JavaModifier> modifiers) {
+    if (modifiers == null)
+      return 0;
+    int mask = 0;
+    for (var m : modifiers)
+      mask |= 1 << m.ordinal();
+    return mask + 1;
+  }
+
+  public static int flags(boolean... flags) {
+    int res = 0;
+    for (int i = 0; i < flags.length; i++)
+      if (flags[i])
+        res |= 1 << i;
+    return res;
+  }
+
+  public void type(Output out, JavaType type) {
+    out.varint(type == null ? 0 : types.get(type) + 1);
+  }
+
+  public void use(Output out, JavaTypeUse use) {
+    out.varint(use == null ? 0 : uses.get(use) + 1);
+  }
+
+  public void uses(Output out, Collection<JavaTypeUse> list) {
+    if (list == null) {
+      out.varint(0);
+      return;
+    }
+    out.varint(list.size() + 1);
+    for (var use : list)
+      use(out, use);
+  }
+
+  public void types(Output out, List<JavaType> list) {
+    if (list == null) {
+      out.varint(0);
+      return;
+    }
+    out.varint(list.size() + 1);
+    for (var type : list)
+      type(out, type);
+  }
+
+  public void methods(Output out, List<JavaMethod> list) {
+    if (list == null) {
+      out.varint(0);
+      return;
+    }
+    out.varint(list.size() + 1);
+    for (var m : list) {
+      out.varint(string(m.name));
+      use(out, m.result);
+      out.varint(modifiers(m.modifiers));
+      out.varint(flags(m.varArgs, m.nullable, m.synthetic));
+      uses(out, m.generics);
+      if (m.paramaters == null) {
+        out.varint(0);
+        continue;
+      }
+      out.varint(m.paramaters.size() + 1);
+      for (var p : m.paramaters) {
+        out.varint(string(p.name));
+        use(out, p.type);
+        out.varint(flags(p.nullable));
+      }
+    }
+  }
+
+  public void fields(Output out, List<JavaField> list) {
+    if (list == null) {
+      out.varint(0);
+      return;
+    }
+    out.varint(list.size() + 1);
+    for (var f : list) {
+      out.varint(string(f.name));
+      use(out, f.type);
+      out.varint(modifiers(f.modifiers));
+      out.varint(flags(f.nullable, f.enumConstant, f.synthetic));
+    }
+  }
+
+  @Override
+  public void write(Map<String, JavaType> map, List<JavaType> values, OutputStream stream)
+      throws IOException {
+    collect(map, values);
+    // the body is built first so the string table is complete when the header goes out
+    var body = new Output();
+    body.varint(typeList.size());
+    body.varint(useList.size());
+    for (var type : typeList) {
+      body.varint(string(type.name));
+      body.varint(string(type.classpath));
+      body.varint(modifiers(type.modifiers));
+      body.varint(flags(type.inner, type.isInterface, type.isEnum));
+      uses(body, type.generics);
+      use(body, type.superType);
+      uses(body, type.interfaces);
+      fields(body, type.fields);
+      methods(body, type.methods);
+      methods(body, type.constructors);
+      types(body, type.classes);
+    }
+    for (var use : useList) {
+      type(body, use.type);
+      body.varint(string(use.typeG));
+      use(body, use.typeC);
+      uses(body, use.generics);
+      uses(body, use.upper);
+      uses(body, use.lower);
+    }
+    body.varint(map.size());
+    for (var entry : map.entrySet()) {
+      body.varint(string(entry.getKey()));
+      type(body, entry.getValue());
+    }
+    types(body, values);
+    var head = new Output();
+    head.out.write(magic);
+    head.varint(version);
+    head.varint(strings.size());
+    for (var str : strings.keySet()) {
+      var bytes = str.getBytes(StandardCharsets.UTF_8);
+      head.varint(bytes.length);
+      head.out.write(bytes);
+    }
+    head.out.writeTo(stream);
+    body.out.writeTo(stream);
+    stream.flush();
+  }
+}
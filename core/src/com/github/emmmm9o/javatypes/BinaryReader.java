@@ -0,0 +1,193 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Reads a model written by BinaryGenerator. Both tables are allocated up front, so records can
+ * point forward and cycles come back as the same objects.
+ */
+public class BinaryReader {
+  public Map<String, JavaType> classMap = new HashMap<>();
+  public List<JavaType> values = new ArrayList<>();
+
+  public InputStream in;
+  public String[] strings;
+  public JavaType[] types;
+  public JavaTypeUse[] uses;
+
+  public int read() throws IOException {
+    int b = in.read();
+    if (b < 0)
+      throw new EOFException();
+    return b;
+  }
+
+  public int varint() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = read();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+    throw new IOException("malformed varint");
+  }
+
+  public static boolean flag(int flags, int i) {
+    return (flags & (1 << i)) != 0;
+  }
+
+  public String string() throws IOException {
+    int i = varint();
+    return i == 0 ? null : strings[i - 1];
+  }
+
+  public JavaType type() throws IOException {
+    int i = varint();
+    return i == 0 ? null : types[i - 1];
+  }
+
+  public JavaTypeUse use() throws IOException {
+    int i = varint();
+    return i == 0 ? null : uses[i - 1];
+  }
+
+  public Set<JavaModifier> modifiers() throws IOException {
+    int mask = varint();
+    if (mask == 0)
+      return null;
+    mask--;
+    var res = EnumSet.noneOf(JavaModifier.class);
+    for (var m : JavaModifier.values())
+      if (flag(mask, m.ordinal()))
+        res.add(m);
+    return res;
+  }
+
+  public <T extends Collection<JavaTypeUse>> T uses(T res) throws IOException {
+    int size = varint();
+    if (size == 0)
+      return null;
+    for (int i = 1; i < size; i++)
+      res.add(use());
+    return res;
+  }
+
+  public List<JavaType> types() throws IOException {
+    int size = varint();
+    if (size == 0)
+      return null;
+    var res = new ArrayList<JavaType>(size - 1);
+    for (int i = 1; i < size; i++)
+      res.add(type());
+    return res;
+  }
+
+  public List<JavaField> fields() throws IOException {
+    int size = varint();
+    if (size == 0)
+      return null;
+    var res = new ArrayList<JavaField>(size - 1);
+    for (int i = 1; i < size; i++) {
+      var f = new JavaField();
+      f.name = string();
+      f.type = use();
+      f.modifiers = modifiers();
+      int flags = varint();
+      f.nullable = flag(flags, 0);
+      f.enumConstant = flag(flags, 1);
+      f.synthetic = flag(flags, 2);
+      res.add(f);
+    }
+    return res;
+  }
+
+  public List<JavaMethod> methods() throws IOException {
+    int size = varint();
+    if (size == 0)
+      return null;
+    var res = new ArrayList<JavaMethod>(size - 1);
+    for (int i = 1; i < size; i++) {
+      var m = new JavaMethod();
+      m.name = string();
+      m.result = use();
+      m.modifiers = modifiers();
+      int flags = varint();
+      m.varArgs = flag(flags, 0);
+      m.nullable = flag(flags, 1);
+      m.synthetic = flag(flags, 2);
+      m.generics = uses(new ArrayList<>());
+      int count = varint();
+      if (count != 0) {
+        m.paramaters = new ArrayList<>(count - 1);
+        for (int j = 1; j < count; j++) {
+          var p = new JavaParamater();
+          p.name = string();
+          p.type = use();
+          p.nullable = flag(varint(), 0);
+          m.paramaters.add(p);
+        }
+      }
+      res.add(m);
+    }
+    return res;
+  }
+
+  public BinaryReader read(InputStream stream) throws IOException {
+    in = stream instanceof BufferedInputStream ? stream : new BufferedInputStream(stream);
+    for (var b : BinaryGenerator.magic)
+      if (read() != b)
+        throw new IOException("not a JTIR file");
+    int version = varint();
+    if (version != BinaryGenerator.version)
+      throw new IOException("unsupported JTIR version " + version);
+    strings = new String[varint()];
+    for (int i = 0; i < strings.length; i++) {
+      var bytes = in.readNBytes(varint());
+      // interned like the reflection names, generators compare some of them by reference
+      strings[i] = new String(bytes, StandardCharsets.UTF_8).intern();
+    }
+    types = new JavaType[varint()];
+    uses = new JavaTypeUse[varint()];
+    for (int i = 0; i < types.length; i++)
+      types[i] = new JavaType();
+    for (int i = 0; i < uses.length; i++)
+      uses[i] = new JavaTypeUse();
+    for (var type : types) {
+      type.name = string();
+      type.classpath = string();
+      type.modifiers = modifiers();
+      int flags = varint();
+      type.inner = flag(flags, 0);
+      type.isInterface = flag(flags, 1);
+      type.isEnum = flag(flags, 2);
+      type.generics = uses(new ArrayList<>());
+      type.superType = use();
+      type.interfaces = uses(new LinkedHashSet<>());
+      type.fields = fields();
+      type.methods = methods();
+      type.constructors = methods();
+      type.classes = types();
+    }
+    for (var use : uses) {
+      use.type = type();
+      use.typeG = string();
+      use.typeC = use();
+      use.generics = uses(new ArrayList<>());
+      use.upper = uses(new ArrayList<>());
+      use.lower = uses(new ArrayList<>());
+    }
+    int size = varint();
+    for (int i = 0; i < size; i++)
+      classMap.put(string(), type());
+    var list = types();
+    if (list != null)
+      values.addAll(list);
+    return this;
+  }
+}
@@ -0,0 +1,63 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+public class ClassScanner {
+  // package prefixes to keep, everything when empty
+  public List<String> packages = new ArrayList<>();
+
+  public boolean accept(String name) {
+    // member classes are parsed through their outer class, local and anonymous ones never
+    if (name.indexOf('$') >= 0 || name.endsWith("module-info") || name.endsWith("package-info"))
+      return false;
+    if (packages.isEmpty())
+      return true;
+    for (var p : packages)
+      if (name.startsWith(p))
+        return true;
+    return false;
+  }
+
+  public static String className(String entry) {
+    return entry.substring(0, entry.length() - ".class".length()).replace('/', '.')
+        .replace('\\', '.');
+  }
+
+  // sorted so discovery order, and with it the parse order, does not depend on the file system
+  public List<String> scan(Path path) throws IOException {
+    var res = new ArrayList<String>();
+    if (Files.isDirectory(path)) {
+      try (Stream<Path> files = Files.walk(path)) {
+        for (var file : (Iterable<Path>) files::iterator) {
+          var entry = path.relativize(file).toString();
+          if (entry.endsWith(".class") && accept(className(entry)))
+            res.add(className(entry));
+        }
+      }
+    } else {
+      try (var zip = new ZipFile(path.toFile())) {
+        var entries = zip.entries();
+        while (entries.hasMoreElements()) {
+          var entry = entries.nextElement().getName();
+          if (entry.endsWith(".class") && !entry.startsWith("META-INF/")
+              && accept(className(entry)))
+            res.add(className(entry));
+        }
+      }
+    }
+    Collections.sort(res);
+    return res;
+  }
+
+  public List<String> scan(List<Path> paths) throws IOException {
+    var res = new ArrayList<String>();
+    for (var path : paths)
+      res.addAll(scan(path));
+    return res;
+  }
+}
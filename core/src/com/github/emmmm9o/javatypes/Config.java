@@ -0,0 +1,230 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Settings for a generation run, read from a properties file. Lists are comma separated, the
+ * classpath uses the platform path separator and relative paths resolve against the file.
+ *
+ * <pre>
+ * classpath=libs/arc.jar:libs/mindustry.jar
+ * packages=arc.,mindustry.          # scanned from the classpath, everything when empty
+ * classes=java.lang.Object          # parsed in addition to the scanned ones
+ * filter=java,jdk,sun               # only declared as a shell, matched by substring
+ * nullable=arc.util.Nullable        # annotations marking nullable members
+ * roots=mindustry.Vars
+ * prefix=Packages.
+ * output=types/index.d.ts
+ * cache=build/javatypes             # keeps the model between runs, see Incremental
+ * manifest=types/base.manifest      # lists what this run declares, for deltas built on it
+ * exclude=../base/base.manifest     # manifests of a shared base, their types are left out
+ * baseReferences=../base/index.d.ts # referenced from the output, relative to it
+ * cmap.java.lang.Runnable=declare type Runnable=()=>void
+ * </pre>
+ */
+public class Config {
+  public List<Path> classpath = new ArrayList<>();
+  public List<String> packages = new ArrayList<>();
+  public List<String> classes = new ArrayList<>();
+  public List<String> filter = new ArrayList<>();
+  public List<String> nullable = new ArrayList<>();
+  public List<String> roots = new ArrayList<>();
+  public String prefix = "";
+  // a file, or a directory when split is set
+  public Path output = Path.of("index.d.ts");
+  public boolean split = false;
+  public Path cache = null;
+  public Path manifest = null;
+  public List<Path> exclude = new ArrayList<>();
+  public List<String> baseReferences = new ArrayList<>();
+  public boolean merged = false;
+  public boolean compact = false;
+  public boolean parallel = false;
+  public boolean functional = false;
+  public boolean interfaces = false;
+  public boolean enums = false;
+  public boolean hoist = false;
+  public int hoistCount = 4;
+  public int hoistLength = 32;
+  public String hoistPrefix = TSGenerator.defaultHoistPrefix;
+  public boolean collapseOverloads = false;
+  public boolean dropRedundant = false;
+  public int maxDepth = Integer.MAX_VALUE;
+  public int maxBounds = Integer.MAX_VALUE;
+  public boolean recursiveBounds = true;
+  public Map<String, String> cmap = new LinkedHashMap<>();
+
+  public static List<String> list(String value) {
+    var res = new ArrayList<String>();
+    if (value == null)
+      return res;
+    for (var s : value.split(","))
+      if (!s.isBlank())
+        res.add(s.strip());
+    return res;
+  }
+
+  public static Config load(Path file) throws IOException {
+    var props = new Properties();
+    try (var in = Files.newBufferedReader(file)) {
+      props.load(in);
+    }
+    var dir = file.toAbsolutePath().getParent();
+    var config = new Config();
+    for (var s : props.getProperty("classpath", "").split(File.pathSeparator))
+      if (!s.isBlank())
+        config.classpath.add(dir.resolve(s.strip()).normalize());
+    config.packages = list(props.getProperty("packages"));
+    config.classes = list(props.getProperty("classes"));
+    config.filter = list(props.getProperty("filter"));
+    config.nullable = list(props.getProperty("nullable"));
+    config.roots = list(props.getProperty("roots"));
+    config.prefix = props.getProperty("prefix", config.prefix);
+    if (props.getProperty("output") != null)
+      config.output = dir.resolve(props.getProperty("output")).normalize();
+    if (props.getProperty("cache") != null)
+      config.cache = dir.resolve(props.getProperty("cache")).normalize();
+    if (props.getProperty("manifest") != null)
+      config.manifest = dir.resolve(props.getProperty("manifest")).normalize();
+    for (var s : list(props.getProperty("exclude")))
+      config.exclude.add(dir.resolve(s).normalize());
+    config.baseReferences = list(props.getProperty("baseReferences"));
+    config.split = bool(props, "split", config.split);
+    config.merged = bool(props, "merged", config.merged);
+    config.compact = bool(props, "compact", config.compact);
+    config.parallel = bool(props, "parallel", config.parallel);
+    config.functional = bool(props, "functional", config.functional);
+    config.interfaces = bool(props, "interfaces", config.interfaces);
+    config.enums = bool(props, "enums", config.enums);
+    config.hoist = bool(props, "hoist", config.hoist);
+    config.hoistCount = Integer.parseInt(props.getProperty("hoistCount", "" + config.hoistCount));
+    config.hoistLength =
+        Integer.parseInt(props.getProperty("hoistLength", "" + config.hoistLength));
+    config.hoistPrefix = props.getProperty("hoistPrefix", config.hoistPrefix);
+    config.collapseOverloads = bool(props, "collapseOverloads", config.collapseOverloads);
+    config.dropRedundant = bool(props, "dropRedundant", config.dropRedundant);
+    config.maxDepth = Integer.parseInt(props.getProperty("maxDepth", "" + config.maxDepth));
+    config.maxBounds = Integer.parseInt(props.getProperty("maxBounds", "" + config.maxBounds));
+    config.recursiveBounds = bool(props, "recursiveBounds", config.recursiveBounds);
+    for (var key : new TreeSet<>(props.stringPropertyNames()))
+      if (key.startsWith("cmap."))
+        config.cmap.put(key.substring("cmap.".length()), props.getProperty(key));
+    return config;
+  }
+
+  public static boolean bool(Properties props, String key, boolean def) {
+    var value = props.getProperty(key);
+    return value == null ? def : Boolean.parseBoolean(value.strip());
+  }
+
+  public URLClassLoader loader(ClassLoader parent) throws IOException {
+    var urls = new URL[classpath.size()];
+    for (int i = 0; i < urls.length; i++)
+      urls[i] = classpath.get(i).toUri().toURL();
+    return new URLClassLoader(urls, parent);
+  }
+
+  public boolean nullable(AnnotatedElement element) {
+    for (var a : element.getAnnotations()) {
+      var name = a.annotationType().getName();
+      if (nullable.contains(name) || nullable.contains(a.annotationType().getSimpleName()))
+        return true;
+    }
+    return false;
+  }
+
+  public Parser parser() {
+    var parser = new Parser();
+    parser.filter = clazz -> {
+      for (var f : filter)
+        if (clazz.getName().contains(f))
+          return true;
+      return false;
+    };
+    if (!nullable.isEmpty()) {
+      parser.fnull = f -> nullable(f);
+      parser.pnull = p -> nullable(p);
+      parser.mnull = m -> nullable(m);
+    }
+    parser.initEnv();
+    return parser;
+  }
+
+  public TSGenerator generator() throws IOException {
+    var generator = new TSGenerator();
+    generator.prefix = prefix;
+    generator.merged = merged;
+    generator.compact = compact;
+    generator.parallel = parallel;
+    generator.functional = functional;
+    generator.interfaces = interfaces;
+    generator.enums = enums;
+    generator.hoist = hoist;
+    generator.hoistCount = hoistCount;
+    generator.hoistLength = hoistLength;
+    generator.hoistPrefix = hoistPrefix;
+    generator.collapseOverloads = collapseOverloads;
+    generator.dropRedundant = dropRedundant;
+    generator.maxDepth = maxDepth;
+    generator.maxBounds = maxBounds;
+    generator.recursiveBounds = recursiveBounds;
+    generator.roots.addAll(roots);
+    for (var file : exclude)
+      generator.exclude.addAll(TSGenerator.readManifest(file));
+    generator.baseReferences.addAll(baseReferences);
+    generator.cmap.putAll(cmap);
+    return generator;
+  }
+
+  // every class to parse, the explicit ones first
+  public List<String> names() throws IOException {
+    var scanner = new ClassScanner();
+    scanner.packages.addAll(packages);
+    var res = new ArrayList<String>(classes);
+    res.addAll(scanner.scan(classpath));
+    return res;
+  }
+
+  public void parse(Parser parser, ClassLoader loader, List<String> failed) throws IOException {
+    for (var name : names()) {
+      try {
+        var clazz = Class.forName(name, false, loader);
+        if (clazz.isAnonymousClass() || clazz.isLocalClass() || clazz.isSynthetic())
+          continue;
+        parser.parse(clazz);
+      } catch (LinkageError | ClassNotFoundException err) {
+        failed.add(name + ": " + err);
+      }
+    }
+  }
+
+  public List<String> write(TSGenerator generator, Parser parser) throws IOException {
+    return write(generator, parser, null);
+  }
+
+  // returns the names of the files that were rewritten, only limits split output to packages
+  public List<String> write(TSGenerator generator, Parser parser, Set<String> only)
+      throws IOException {
+    var writer = new OutputWriter();
+    List<String> res;
+    if (split) {
+      res = writer.write(output, generator.generateFiles(parser.classMap, parser.values, only));
+    } else {
+      if (output.getParent() != null)
+        Files.createDirectories(output.getParent());
+      var content = generator.generate(parser.classMap, parser.values);
+      res = writer.write(output, content) ? List.of(output.getFileName().toString()) : List.of();
+    }
+    if (manifest != null) {
+      if (manifest.getParent() != null)
+        Files.createDirectories(manifest.getParent());
+      generator.writeManifest(manifest);
+    }
+    return res;
+  }
+}
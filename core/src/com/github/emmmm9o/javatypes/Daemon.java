@@ -0,0 +1,175 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Keeps a parsed model in memory and answers one request per line, over stdin or a loopback
+ * socket. Every reply ends with a line holding a single dot.
+ *
+ * <pre>
+ * regenerate            writes the configured output, replies with the rewritten files and
+ *                       a line for each type the budget simplified
+ * declaration &lt;class&gt;   replies with the declaration of one class, parsing it if needed
+ * invalidate &lt;jar&gt;      reloads the classpath, replies with the classes that changed
+ * quit
+ * </pre>
+ *
+ * Failures reply "error" and a message. Requests are handled one at a time, the model and the
+ * generator are not thread safe.
+ */
+public class Daemon {
+  public Config config;
+  public URLClassLoader loader;
+  public Incremental incremental;
+  public Parser parser;
+  public TSGenerator generator;
+  // the generator holds what prepare computed over the served model, until the model changes
+  public boolean prepared = false;
+  public List<String> failed = new ArrayList<>();
+
+  public Daemon(Config config) {
+    this.config = config;
+  }
+
+  public void load() throws IOException {
+    if (loader != null)
+      loader.close();
+    failed.clear();
+    loader = config.loader(Daemon.class.getClassLoader());
+    incremental = new Incremental(config);
+    incremental.parse(loader);
+    parser = incremental.parser;
+    generator = config.generator();
+    prepared = false;
+    failed.addAll(incremental.failed);
+  }
+
+  // a new loader sees the changed class files, the model is parsed again if any of them moved
+  public Set<String> reload() throws IOException {
+    // jar resources are read through a cache shared by url, while the old loader holds a jar
+    // open the new one sees its old content
+    loader.close();
+    loader = config.loader(Daemon.class.getClassLoader());
+    var affected = incremental.update(loader);
+    // a parse replaces the parser
+    parser = incremental.parser;
+    prepared = false;
+    failed.clear();
+    failed.addAll(incremental.failed);
+    return affected;
+  }
+
+  public List<String> regenerate() throws IOException {
+    var res = config.write(generator, parser);
+    // writing prepares over the served model as well
+    prepared = true;
+    return res;
+  }
+
+  // a parser over copies of the model, parsing into it leaves what regenerate writes alone
+  public Parser scratch() {
+    var res = config.parser();
+    res.classMap = new HashMap<>(parser.classMap);
+    res.supMap = new HashMap<>(parser.supMap);
+    res.values = new ArrayList<>(parser.values);
+    res.typeMap = new HashMap<>(parser.typeMap);
+    return res;
+  }
+
+  // classes outside the model are rendered against the served model too, so they use the same
+  // aliases and stubs as the written output
+  public String declaration(String name) throws ClassNotFoundException {
+    if (!prepared) {
+      generator.prepare(parser.classMap, parser.values);
+      prepared = true;
+    }
+    var type = parser.classMap.get(name);
+    if (type == null)
+      type = scratch().parse(Class.forName(name, false, loader));
+    generator.modifierJavaType(type);
+    if (generator.merged)
+      return generator.generateBody(type);
+    return generator.generateModule(generator.getModule(generator.getModulePath(type)), type);
+  }
+
+  public Set<String> invalidate(String jar) throws IOException {
+    var path = Path.of(jar).toAbsolutePath().normalize();
+    if (!config.classpath.contains(path))
+      throw new IllegalArgumentException(jar + " is not on the classpath");
+    return reload();
+  }
+
+  public static void reply(Writer out, String body) throws IOException {
+    if (!body.isEmpty()) {
+      out.write(body);
+      if (!body.endsWith("\n"))
+        out.write('\n');
+    }
+    out.write(".\n");
+    out.flush();
+  }
+
+  // returns false once quit was requested
+  public boolean serve(BufferedReader in, Writer out) throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      line = line.strip();
+      if (line.isEmpty())
+        continue;
+      var split = line.split("\\s+", 2);
+      var arg = split.length > 1 ? split[1] : "";
+      try {
+        long time = System.nanoTime();
+        switch (split[0]) {
+          case "regenerate" -> {
+            var files = regenerate();
+            var str = new StringBuilder("ok " + (System.nanoTime() - time) / 1000000 + "ms "
+                + String.join(" ", files));
+            for (var s : generator.simplified)
+              str.append("\nsimplified ").append(s);
+            reply(out, str.toString());
+          }
+          case "declaration" -> reply(out, declaration(arg));
+          case "invalidate" -> {
+            invalidate(arg);
+            reply(out, "ok " + (System.nanoTime() - time) / 1000000 + "ms "
+                + String.join(" ", incremental.changed));
+          }
+          case "quit" -> {
+            reply(out, "ok");
+            return false;
+          }
+          default -> reply(out, "error unknown request " + split[0]);
+        }
+      } catch (Exception | LinkageError err) {
+        reply(out, "error " + err);
+      }
+    }
+    return true;
+  }
+
+  public void serve(int port) throws IOException {
+    try (var server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+      while (true) {
+        try (var socket = server.accept()) {
+          var in = new BufferedReader(
+              new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+          var out = new BufferedWriter(
+              new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+          if (!serve(in, out))
+            return;
+        }
+      }
+    }
+  }
+
+  public void serve() throws IOException {
+    serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+        new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+  }
+}
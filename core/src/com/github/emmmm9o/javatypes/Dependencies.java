@@ -0,0 +1,100 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+public class Dependencies {
+  public static String topLevel(String classpath) {
+    var i = classpath.indexOf('$');
+    return i < 0 ? classpath : classpath.substring(0, i);
+  }
+
+  public static String packageOf(JavaType type) {
+    var cp = topLevel(type.classpath);
+    var d = cp.lastIndexOf('.');
+    return d < 0 ? "" : cp.substring(0, d);
+  }
+
+  // uses are cached per reflect type, so bounds like T extends Comparable<T> form cycles
+  public static void collect(JavaTypeUse use, Set<JavaType> res, Set<JavaTypeUse> visited) {
+    if (use == null || !visited.add(use))
+      return;
+    if (use.type != null)
+      res.add(use.type);
+    collect(use.typeC, res, visited);
+    collect(use.generics, res, visited);
+    collect(use.upper, res, visited);
+    collect(use.lower, res, visited);
+  }
+
+  public static void collect(Collection<JavaTypeUse> uses, Set<JavaType> res,
+      Set<JavaTypeUse> visited) {
+    if (uses == null)
+      return;
+    for (var use : uses)
+      collect(use, res, visited);
+  }
+
+  public static void collect(JavaMethod method, Set<JavaType> res, Set<JavaTypeUse> visited) {
+    collect(method.result, res, visited);
+    collect(method.generics, res, visited);
+    for (var p : method.paramaters)
+      collect(p.type, res, visited);
+  }
+
+  public static boolean visible(Set<JavaModifier> modifiers) {
+    return modifiers != null
+        && (modifiers.contains(JavaModifier.Public) || modifiers.contains(JavaModifier.Protected));
+  }
+
+  // api skips members a script cannot reach, private and package-private ones
+  public static void collect(JavaType type, Set<JavaType> res, Set<JavaTypeUse> visited,
+      boolean api) {
+    collect(type.generics, res, visited);
+    collect(type.superType, res, visited);
+    collect(type.interfaces, res, visited);
+    for (var f : type.fields)
+      if (!api || visible(f.modifiers))
+        collect(f.type, res, visited);
+    for (var m : type.methods)
+      if (!api || visible(m.modifiers))
+        collect(m, res, visited);
+    for (var m : type.constructors)
+      if (!api || visible(m.modifiers))
+        collect(m, res, visited);
+    for (var c : type.classes)
+      if (!api || visible(c.modifiers))
+        collect(c, res, visited, api);
+  }
+
+  public static Set<JavaType> uses(JavaType type, boolean api) {
+    var res = new LinkedHashSet<JavaType>();
+    collect(type, res, Collections.newSetFromMap(new IdentityHashMap<>()), api);
+    return res;
+  }
+
+  public static Set<JavaType> uses(JavaType type) {
+    return uses(type, false);
+  }
+
+  // top level classpaths reachable from the roots through the public api
+  public static Set<String> reachable(Map<String, JavaType> map, Collection<String> roots) {
+    var res = new LinkedHashSet<String>();
+    var queue = new ArrayDeque<String>();
+    for (var root : roots) {
+      if (map.containsKey(root) && res.add(root))
+        queue.add(root);
+    }
+    while (!queue.isEmpty()) {
+      var type = map.get(queue.poll());
+      for (var use : uses(type, true)) {
+        var top = topLevel(use.classpath);
+        if (map.containsKey(top) && res.add(top))
+          queue.add(top);
+      }
+    }
+    return res;
+  }
+}
@@ -0,0 +1,304 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.util.*;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Builds the same model as Parser from javax.lang.model elements, so declarations can be made
+ * while javac runs. Reflection handles stay null.
+ */
+public class ElementParser {
+  public static interface Filter {
+    public boolean filter(TypeElement element);
+  }
+
+  public static interface Nullable {
+    public boolean check(Element element);
+  }
+
+  public Elements elements;
+  public Types types;
+  public Nullable fnull = f -> true;
+  public Nullable pnull = p -> true;
+  public Nullable mnull = m -> true;
+  public Filter filter = element -> false;
+  public Map<String, JavaType> classMap = new HashMap<>();
+  public Map<String, Boolean> supMap = new HashMap<>();
+  public List<JavaType> values = new ArrayList<>();
+  // type variables are the only way back into a type use, bounds like T extends Comparable<T>
+  public Map<Element, JavaTypeUse> typeMap = new HashMap<>();
+  // raw uses by binary name, Parser.typeMap caches them by class. a type first used as a shell
+  // then stays one when something extends it later, as with reflection
+  public Map<String, JavaTypeUse> rawMap = new HashMap<>();
+  public boolean sortMembers = true;
+
+  public ElementParser(Elements elements, Types types) {
+    this.elements = elements;
+    this.types = types;
+  }
+
+  public static Set<JavaModifier> getModifiers(Set<Modifier> modifiers) {
+    var res = EnumSet.noneOf(JavaModifier.class);
+    if (modifiers.contains(Modifier.PUBLIC))
+      res.add(JavaModifier.Public);
+    if (modifiers.contains(Modifier.PROTECTED))
+      res.add(JavaModifier.Protected);
+    if (modifiers.contains(Modifier.PRIVATE))
+      res.add(JavaModifier.Private);
+    if (modifiers.contains(Modifier.STATIC))
+      res.add(JavaModifier.Static);
+    if (modifiers.contains(Modifier.FINAL))
+      res.add(JavaModifier.Final);
+    if (modifiers.contains(Modifier.ABSTRACT))
+      res.add(JavaModifier.Abstract);
+    return res;
+  }
+
+  // the shells Parser.initEnv puts for primitives
+  public JavaType primitive(String name) {
+    var tmp = classMap.get(name);
+    if (tmp != null)
+      return tmp;
+    tmp = new JavaType();
+    tmp.name = name;
+    tmp.classpath = name;
+    tmp.modifiers = EnumSet.of(JavaModifier.Public, JavaModifier.Final, JavaModifier.Abstract);
+    tmp.generics = new ArrayList<>();
+    tmp.interfaces = new LinkedHashSet<>();
+    tmp.fields = new ArrayList<>();
+    tmp.methods = new ArrayList<>();
+    tmp.constructors = new ArrayList<>();
+    tmp.classes = new ArrayList<>();
+    classMap.put(name, tmp);
+    supMap.put(name, true);
+    return tmp;
+  }
+
+  // a shell like Parser.put, it is parsed in full once something extends it
+  public void put(TypeElement element) {
+    var tmp = new JavaType();
+    tmp.name = name(element.getSimpleName());
+    tmp.classpath = name(elements.getBinaryName(element));
+    tmp.modifiers = getModifiers(element.getModifiers());
+    tmp.generics = new ArrayList<>();
+    tmp.interfaces = new LinkedHashSet<>();
+    tmp.fields = new ArrayList<>();
+    tmp.methods = new ArrayList<>();
+    tmp.constructors = new ArrayList<>();
+    tmp.classes = new ArrayList<>();
+    tmp.inner = element.getNestingKind().isNested();
+    tmp.isInterface = element.getKind().isInterface();
+    tmp.isEnum = element.getKind() == ElementKind.ENUM;
+    classMap.put(tmp.classpath, tmp);
+    supMap.put(tmp.classpath, true);
+  }
+
+  // the same core types as Parser.initEnv, without them Object is declared as a filtered shell
+  // and once more in full
+  public void initEnv() {
+    for (var name : List.of("java.lang.Object", "java.lang.Integer", "java.lang.String",
+        "java.lang.Class", "java.lang.Double", "java.lang.Float", "java.lang.Character",
+        "java.lang.Void", "java.lang.Boolean"))
+      put(elements.getTypeElement(name));
+    for (var name : List.of("int", "boolean", "float", "double", "void", "byte", "char"))
+      primitive(name);
+  }
+
+  public JavaTypeUse use(JavaType type) {
+    var tmp = new JavaTypeUse();
+    tmp.type = type;
+    tmp.generics = new ArrayList<>();
+    return tmp;
+  }
+
+  public JavaTypeUse getType(TypeMirror mirror) {
+    return getType(mirror, false);
+  }
+
+  public JavaTypeUse getType(TypeMirror mirror, boolean sup) {
+    switch (mirror.getKind()) {
+      case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE, VOID:
+        return use(primitive(name(mirror.getKind().toString().toLowerCase())));
+      case ARRAY: {
+        var tmp = new JavaTypeUse();
+        tmp.typeC = getType(((ArrayType) mirror).getComponentType(), sup);
+        tmp.generics = new ArrayList<>();
+        return tmp;
+      }
+      case DECLARED: {
+        var declared = (DeclaredType) mirror;
+        var element = (TypeElement) declared.asElement();
+        var raw = declared.getTypeArguments().isEmpty();
+        if (raw && rawMap.containsKey(name(elements.getBinaryName(element))))
+          return rawMap.get(name(elements.getBinaryName(element)));
+        var tmp = use(parse(element, sup));
+        tmp.generics = getTypes(declared.getTypeArguments());
+        if (raw)
+          rawMap.put(tmp.type.classpath, tmp);
+        return tmp;
+      }
+      case TYPEVAR: {
+        var element = types.asElement(mirror);
+        var tmp = typeMap.get(element);
+        if (tmp != null)
+          return tmp;
+        tmp = new JavaTypeUse();
+        tmp.typeG = name(element.getSimpleName());
+        tmp.generics = new ArrayList<>();
+        typeMap.put(element, tmp);
+        tmp.upper = bounds(((TypeVariable) mirror).getUpperBound());
+        return tmp;
+      }
+      case WILDCARD: {
+        var wildcard = (WildcardType) mirror;
+        var tmp = new JavaTypeUse();
+        tmp.typeG = "?";
+        // reflection reports Object for an unbounded wildcard
+        tmp.upper = wildcard.getExtendsBound() != null ? bounds(wildcard.getExtendsBound())
+            : bounds(elements.getTypeElement("java.lang.Object").asType());
+        tmp.lower = wildcard.getSuperBound() != null ? bounds(wildcard.getSuperBound())
+            : new ArrayList<>();
+        return tmp;
+      }
+      default:
+        // unresolved (error) types and the like
+        return use(parse(elements.getTypeElement("java.lang.Object"), sup));
+    }
+  }
+
+  public ArrayList<JavaTypeUse> bounds(TypeMirror mirror) {
+    if (mirror instanceof IntersectionType intersection)
+      return getTypes(intersection.getBounds());
+    var res = new ArrayList<JavaTypeUse>();
+    res.add(getType(mirror));
+    return res;
+  }
+
+  public ArrayList<JavaTypeUse> getTypes(List<? extends TypeMirror> list) {
+    var tmp = new ArrayList<JavaTypeUse>();
+    for (var mirror : list)
+      tmp.add(getType(mirror));
+    return tmp;
+  }
+
+  public ArrayList<JavaTypeUse> getGenerics(List<? extends TypeParameterElement> list) {
+    var tmp = new ArrayList<JavaTypeUse>();
+    for (var p : list)
+      tmp.add(getType(p.asType()));
+    return tmp;
+  }
+
+  public String signature(Element element) {
+    if (!(element instanceof ExecutableElement exe))
+      return element.getSimpleName().toString();
+    var str = new StringBuilder();
+    str.append(exe.getSimpleName()).append("(");
+    for (var p : exe.getParameters())
+      str.append(types.erasure(p.asType())).append(",");
+    str.append(")");
+    if (exe.getKind() == ElementKind.METHOD)
+      str.append(types.erasure(exe.getReturnType()));
+    return str.toString();
+  }
+
+  public <T extends Element> List<T> sorted(List<T> list) {
+    if (!sortMembers)
+      return list;
+    var res = new ArrayList<T>(list);
+    res.sort(Comparator.comparing(this::signature));
+    return res;
+  }
+
+  public JavaMethod method(ExecutableElement method) {
+    var tmp = new JavaMethod();
+    tmp.varArgs = method.isVarArgs();
+    tmp.modifiers = getModifiers(method.getModifiers());
+    tmp.generics = getGenerics(method.getTypeParameters());
+    tmp.paramaters = new ArrayList<>();
+    if (method.getKind() == ElementKind.METHOD) {
+      tmp.name = name(method.getSimpleName());
+      tmp.result = getType(method.getReturnType());
+      tmp.nullable = mnull.check(method);
+    }
+    for (var p : method.getParameters()) {
+      var param = new JavaParamater();
+      param.name = name(p.getSimpleName());
+      param.type = getType(p.asType());
+      param.nullable = pnull.check(p);
+      tmp.paramaters.add(param);
+    }
+    return tmp;
+  }
+
+  public JavaType parse(TypeElement element) {
+    return parse(element, false);
+  }
+
+  // interned like the reflection names, generators compare some of them by reference
+  public static String name(Object name) {
+    return name.toString().intern();
+  }
+
+  public JavaType parse(TypeElement element, boolean sup) {
+    var name = name(elements.getBinaryName(element));
+    var tmp = classMap.getOrDefault(name, null);
+    var su = supMap.getOrDefault(name, false);
+    if (su && sup) {
+      supMap.put(name, false);
+    } else if (tmp != null)
+      return tmp;
+
+    tmp = new JavaType();
+    tmp.name = name(element.getSimpleName());
+    tmp.classpath = name;
+    tmp.modifiers = getModifiers(element.getModifiers());
+    tmp.interfaces = new LinkedHashSet<>();
+    tmp.fields = new ArrayList<>();
+    tmp.methods = new ArrayList<>();
+    tmp.classes = new ArrayList<>();
+    tmp.constructors = new ArrayList<>();
+    tmp.inner = element.getNestingKind().isNested();
+    tmp.isInterface = element.getKind().isInterface();
+    tmp.isEnum = element.getKind() == ElementKind.ENUM;
+    classMap.put(name, tmp);
+    tmp.generics = getGenerics(element.getTypeParameters());
+    if (filter.filter(element) && !sup) {
+      if (!tmp.inner)
+        values.add(tmp);
+      supMap.put(name, true);
+      return tmp;
+    }
+
+    if (element.getSuperclass().getKind() != TypeKind.NONE)
+      tmp.superType = getType(element.getSuperclass(), true);
+    for (var intf : element.getInterfaces())
+      tmp.interfaces.add(getType(intf, true));
+    var enclosed = element.getEnclosedElements();
+    for (var claz : sorted(ElementFilter.typesIn(enclosed)))
+      tmp.classes.add(parse(claz));
+    for (var field : sorted(ElementFilter.fieldsIn(enclosed))) {
+      var f = new JavaField();
+      f.type = getType(field.asType());
+      f.name = name(field.getSimpleName());
+      f.modifiers = getModifiers(field.getModifiers());
+      f.nullable = fnull.check(field);
+      f.enumConstant = field.getKind() == ElementKind.ENUM_CONSTANT;
+      tmp.fields.add(f);
+    }
+    // Class.getConstructors only returns the public ones
+    for (var method : sorted(ElementFilter.constructorsIn(enclosed)))
+      if (method.getModifiers().contains(Modifier.PUBLIC))
+        tmp.constructors.add(method(method));
+    for (var method : sorted(ElementFilter.methodsIn(enclosed)))
+      tmp.methods.add(method(method));
+    if (!tmp.inner)
+      values.add(tmp);
+    return tmp;
+  }
+}
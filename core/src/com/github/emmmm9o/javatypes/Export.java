@@ -0,0 +1,10 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.lang.annotation.*;
+
+// marks a class for ExportProcessor, class retention so gradle can run it incrementally
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Export {
+}
@@ -0,0 +1,90 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.util.*;
+
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.tools.*;
+
+/**
+ * Declares every class annotated with Export while javac runs. Types they reference are only
+ * declared as shells. Registered as an aggregating processor for gradle, so only changed sources
+ * make it run again.
+ *
+ * Options: javatypes.output (default types/index.d.ts, in the class output), javatypes.prefix,
+ * javatypes.nullable (annotation names, simple or qualified) and javatypes.merged.
+ */
+@SupportedAnnotationTypes("com.github.emmmm9o.javatypes.Export")
+@SupportedOptions({"javatypes.output", "javatypes.prefix", "javatypes.nullable",
+    "javatypes.merged"})
+public class ExportProcessor extends AbstractProcessor {
+  public Set<String> exported = new TreeSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  public boolean nullable(Element element, List<String> names) {
+    for (var a : element.getAnnotationMirrors()) {
+      var type = (TypeElement) a.getAnnotationType().asElement();
+      if (names.contains(type.getQualifiedName().toString())
+          || names.contains(type.getSimpleName().toString()))
+        return true;
+    }
+    return false;
+  }
+
+  // nested classes of an exported class are exported with it
+  public static boolean exported(Element element) {
+    for (var e = element; e instanceof TypeElement; e = e.getEnclosingElement())
+      if (e.getAnnotation(Export.class) != null)
+        return true;
+    return false;
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+    for (var element : round.getElementsAnnotatedWith(Export.class))
+      if (element instanceof TypeElement type)
+        exported.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+    // Export is only meant for this processor, claiming it keeps -Xlint:processing quiet
+    if (!round.processingOver() || exported.isEmpty())
+      return true;
+    var options = processingEnv.getOptions();
+    var elements = processingEnv.getElementUtils();
+    var parser = new ElementParser(elements, processingEnv.getTypeUtils());
+    parser.filter = element -> !exported(element);
+    parser.initEnv();
+    var nullable = Config.list(options.get("javatypes.nullable"));
+    if (!nullable.isEmpty()) {
+      parser.fnull = f -> nullable(f, nullable);
+      parser.pnull = p -> nullable(p, nullable);
+      parser.mnull = m -> nullable(m, nullable);
+    }
+    for (var name : exported) {
+      // binary names of nested classes use $, getTypeElement wants the canonical one
+      var element = elements.getTypeElement(name.replace('$', '.'));
+      if (element != null)
+        parser.parse(element);
+    }
+    var generator = new TSGenerator();
+    generator.prefix = options.getOrDefault("javatypes.prefix", "");
+    generator.merged = Boolean.parseBoolean(options.get("javatypes.merged"));
+    var output = options.getOrDefault("javatypes.output", "types/index.d.ts");
+    try {
+      var file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+          output);
+      try (var writer = file.openWriter()) {
+        writer.write(generator.generate(parser.classMap, parser.values));
+      }
+    } catch (IOException err) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "could not write " + output + ": " + err);
+    }
+    return true;
+  }
+}
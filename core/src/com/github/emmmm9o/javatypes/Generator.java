@@ -1,11 +1,14 @@
 /* (C) 2025 */
 package com.github.emmmm9o.javatypes;
 
+import java.io.*;
 import java.util.*;
 
 import com.github.emmmm9o.javatypes.JavaTypes.*;
 
 
 public interface Generator {
-  public String generate(Map<String, JavaType> maps, List<JavaType> values);
+  // generators must only read the model, MultiGenerator runs several of them over the same one
+  public void write(Map<String, JavaType> maps, List<JavaType> values, OutputStream out)
+      throws IOException;
 }
@@ -0,0 +1,201 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Keeps a hash of the class files behind every top level type of the model, so a run where no
+ * class changed reuses the model instead of parsing the classpath. The model can be saved next to
+ * the hashes (as JTIR) and picked up by the next run.
+ *
+ * Any change parses the classpath again: the order of values and the shells a filtered parse
+ * leaves depend on every class, so patching the model cannot keep the output of a full run. The
+ * output stays cheap to write since OutputWriter skips files whose content did not change. Types
+ * read back from a saved model get their classRef again, the other reflection handles stay null.
+ */
+public class Incremental {
+  public static final Set<String> primitives =
+      Set.of("boolean", "byte", "short", "int", "long", "char", "float", "double", "void");
+
+  public Config config;
+  public Parser parser;
+  public Map<String, String> fingerprints = new TreeMap<>();
+  // top level classpaths whose class files changed, appeared or vanished in the last update
+  public Set<String> changed = new TreeSet<>();
+  public List<String> failed = new ArrayList<>();
+
+  // the loader of the last parse or update
+  public ClassLoader loader;
+
+  public Incremental(Config config) {
+    this.config = config;
+  }
+
+  public static void hash(Class<?> clazz, OutputStream out) throws IOException {
+    var file = clazz.getName().replace('.', '/') + ".class";
+    var loader = clazz.getClassLoader();
+    try (var in = loader == null ? ClassLoader.getSystemResourceAsStream(file)
+        : loader.getResourceAsStream(file)) {
+      if (in == null)
+        throw new FileNotFoundException(file);
+      in.transferTo(out);
+    }
+    Class<?>[] nested;
+    try {
+      nested = clazz.getDeclaredClasses();
+    } catch (LinkageError err) {
+      return;
+    }
+    Arrays.sort(nested, Comparator.comparing(Class::getName));
+    for (var c : nested)
+      hash(c, out);
+  }
+
+  // covers the nested classes too, they are parsed with their outer class
+  public static String fingerprint(Class<?> clazz) {
+    var digest = OutputWriter.digest();
+    try (var out = new OutputStream() {
+      @Override
+      public void write(int b) {
+        digest.update((byte) b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        digest.update(b, off, len);
+      }
+    }) {
+      hash(clazz, out);
+    } catch (IOException err) {
+      return null;
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  // the configured classes and every top level type the model already has
+  public Set<String> names() throws IOException {
+    var res = new TreeSet<String>(config.names());
+    for (var v : parser.values)
+      if (!v.inner && !primitives.contains(v.classpath))
+        res.add(v.classpath);
+    return res;
+  }
+
+  public void parse(ClassLoader loader) throws IOException {
+    this.loader = loader;
+    failed.clear();
+    parser = config.parser();
+    config.parse(parser, loader, failed);
+    fingerprints.clear();
+    changed.clear();
+    for (var name : names()) {
+      try {
+        var hash = fingerprint(Class.forName(name, false, loader));
+        if (hash != null)
+          fingerprints.put(name, hash);
+      } catch (LinkageError | ClassNotFoundException err) {
+        // already reported by config.parse
+      }
+      changed.add(name);
+    }
+  }
+
+  public static void restore(JavaType type, Class<?> clazz) {
+    type.classRef = clazz;
+    if (type.classes == null)
+      return;
+    var nested = new HashMap<String, Class<?>>();
+    try {
+      for (var c : clazz.getDeclaredClasses())
+        nested.put(c.getName(), c);
+    } catch (LinkageError err) {
+      return;
+    }
+    for (var c : type.classes)
+      if (nested.containsKey(c.classpath))
+        restore(c, nested.get(c.classpath));
+  }
+
+  // returns the packages to render again: none when no class file changed, null (all of them)
+  // after the classpath was parsed again
+  public Set<String> update(ClassLoader loader) throws IOException {
+    failed.clear();
+    changed.clear();
+    var hashes = new TreeMap<String, String>();
+    var classes = new HashMap<String, Class<?>>();
+    for (var name : names()) {
+      try {
+        var clazz = Class.forName(name, false, loader);
+        classes.put(name, clazz);
+        var hash = fingerprint(clazz);
+        if (hash != null)
+          hashes.put(name, hash);
+      } catch (LinkageError | ClassNotFoundException err) {
+        // a class that vanished counts as changed, one that never loaded is reported again
+        if (!fingerprints.containsKey(name))
+          failed.add(name + ": " + err);
+      }
+    }
+    var names = new TreeSet<>(hashes.keySet());
+    names.addAll(fingerprints.keySet());
+    for (var name : names)
+      if (!Objects.equals(hashes.get(name), fingerprints.get(name)))
+        changed.add(name);
+    if (changed.isEmpty()) {
+      this.loader = loader;
+      for (var entry : classes.entrySet()) {
+        var type = parser.classMap.get(entry.getKey());
+        if (type != null)
+          restore(type, entry.getValue());
+      }
+      return new TreeSet<>();
+    }
+    var res = new TreeSet<>(changed);
+    parse(loader);
+    changed.clear();
+    changed.addAll(res);
+    return null;
+  }
+
+  public void save(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    try (var out = new BufferedOutputStream(Files.newOutputStream(dir.resolve("model.jtir")))) {
+      new BinaryGenerator().write(parser.classMap, parser.values, out);
+    }
+    var str = new StringBuilder();
+    for (var entry : fingerprints.entrySet())
+      str.append(entry.getKey()).append(" ").append(entry.getValue()).append("\n");
+    Files.writeString(dir.resolve("fingerprints"), str);
+  }
+
+  // returns false when there is nothing saved yet
+  public boolean load(Path dir) throws IOException {
+    var model = dir.resolve("model.jtir");
+    var file = dir.resolve("fingerprints");
+    if (!Files.isRegularFile(model) || !Files.isRegularFile(file))
+      return false;
+    BinaryReader reader;
+    try (var in = Files.newInputStream(model)) {
+      reader = new BinaryReader().read(in);
+    }
+    parser = config.parser();
+    parser.classMap = reader.classMap;
+    parser.values = reader.values;
+    // shells are what a filtered parse leaves, a later super type use parses them in full
+    for (var type : parser.classMap.values())
+      if (type.superType == null && type.interfaces.isEmpty() && type.fields.isEmpty()
+          && type.methods.isEmpty() && type.constructors.isEmpty() && type.classes.isEmpty())
+        parser.supMap.put(type.classpath, true);
+    fingerprints.clear();
+    for (var line : Files.readAllLines(file)) {
+      var split = line.split(" ");
+      if (split.length == 2)
+        fingerprints.put(split[0], split[1]);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,61 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Runtime companion of TSGenerator, binds every global it declares through a getter that looks
+ * the class up on first access and then replaces itself with the value.
+ */
+public class JSPreludeGenerator implements TextGenerator {
+  public static final Set<String> reserved = Set.of("break", "case", "catch", "class", "const",
+      "continue", "debugger", "default", "delete", "do", "else", "enum", "export", "extends",
+      "false", "finally", "for", "function", "if", "implements", "import", "in", "instanceof",
+      "interface", "let", "new", "null", "package", "private", "protected", "public", "return",
+      "static", "super", "switch", "this", "throw", "true", "try", "typeof", "var", "void",
+      "while", "with", "yield");
+
+  public TSGenerator declarations;
+  public String scope = "this";
+
+  public JSPreludeGenerator(TSGenerator declarations) {
+    this.declarations = declarations;
+  }
+
+  public static String access(String classpath) {
+    var str = new StringBuilder("Packages");
+    for (var part : classpath.split("\\.")) {
+      if (reserved.contains(part) || !part.matches("[A-Za-z_$][\\w$]*"))
+        str.append("[\"").append(part).append("\"]");
+      else
+        str.append(".").append(part);
+    }
+    return str.toString();
+  }
+
+  @Override
+  public String generate(Map<String, JavaType> map, List<JavaType> values) {
+    values = declarations.prepare(map, values);
+    var str = new StringBuilder();
+    str.append("(function (scope) {\n");
+    str.append("  function lazy(name, get) {\n");
+    str.append("    Object.defineProperty(scope, name, {\n");
+    str.append("      configurable: true,\n");
+    str.append("      get: function () {\n");
+    str.append("        var value = get();\n");
+    str.append("        Object.defineProperty(scope, name, { value: value, writable: true,"
+        + " configurable: true });\n");
+    str.append("        return value;\n");
+    str.append("      }\n");
+    str.append("    });\n");
+    str.append("  }\n");
+    for (var v : declarations.globals(values)) {
+      str.append("  lazy(\"").append(v.name).append("\", function () { return ")
+          .append(access(v.classpath)).append("; });\n");
+    }
+    str.append("})(").append(scope).append(");\n");
+    return str.toString();
+  }
+}
@@ -23,6 +23,8 @@ public class JavaTypes {
     public List<JavaMethod> constructors;
     public List<JavaType> classes;
     public boolean inner;
+    public boolean isInterface;
+    public boolean isEnum;
 
     public JavaType() {
 
@@ -34,13 +36,15 @@ public class JavaTypes {
       classpath = clazz.getName();
       generics = new ArrayList<>();
       modifiers = Parser.getModifiers(clazz.getModifiers());
-      interfaces = new HashSet<>();
+      interfaces = new LinkedHashSet<>();
       fields = new ArrayList<>();
       methods = new ArrayList<>();
       classes = new ArrayList<>();
       constructors = new ArrayList<>();
       superType = null;
       inner = clazz.getDeclaringClass() != null;
+      isInterface = clazz.isInterface();
+      isEnum = clazz.isEnum();
 
     }
   }
@@ -69,6 +73,7 @@ public class JavaTypes {
     public List<JavaTypeUse> generics;
     public boolean varArgs;
     public boolean nullable;
+    public boolean synthetic;// bridge methods are synthetic too
     public Method mref;
     public Constructor<?> cref;
   }
@@ -78,5 +83,7 @@ public class JavaTypes {
     public String name;
     public Set<JavaModifier> modifiers;
     public boolean nullable;
+    public boolean enumConstant;
+    public boolean synthetic;
   }
 }
@@ -0,0 +1,283 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Streams the parsed model as json. Types refer to each other by classpath. A type use is
+ * written in full the first time with an "id", later occurrences (and cycles through bounds)
+ * are written as {"ref": id}.
+ */
+public class JsonGenerator implements TextGenerator {
+  public boolean pretty = true;
+
+  public Writer out;
+  public Map<JavaTypeUse, Integer> ids = new IdentityHashMap<>();
+  // one entry per open object or array, true until its first element is written
+  public BitSet first = new BitSet();
+  public int depth;
+
+  public void newline() throws IOException {
+    if (!pretty)
+      return;
+    out.write('\n');
+    for (int i = 0; i < depth; i++)
+      out.write("  ");
+  }
+
+  public void next() throws IOException {
+    if (depth == 0)
+      return;
+    if (!first.get(depth))
+      out.write(',');
+    first.clear(depth);
+    newline();
+  }
+
+  public void begin(char c) throws IOException {
+    out.write(c);
+    depth++;
+    first.set(depth);
+  }
+
+  public void end(char c) throws IOException {
+    var empty = first.get(depth);
+    depth--;
+    if (!empty)
+      newline();
+    out.write(c);
+  }
+
+  public void string(String str) throws IOException {
+    if (str == null) {
+      out.write("null");
+      return;
+    }
+    out.write('"');
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      switch (c) {
+        case '"' -> out.write("\\\"");
+        case '\\' -> out.write("\\\\");
+        case '\n' -> out.write("\\n");
+        case '\r' -> out.write("\\r");
+        case '\t' -> out.write("\\t");
+        default -> {
+          if (c < 0x20)
+            out.write(String.format("\\u%04x", (int) c));
+          else
+            out.write(c);
+        }
+      }
+    }
+    out.write('"');
+  }
+
+  public void key(String key) throws IOException {
+    next();
+    string(key);
+    out.write(pretty ? ": " : ":");
+  }
+
+  public void field(String key, String value) throws IOException {
+    key(key);
+    string(value);
+  }
+
+  // false is the default, so it is left out
+  public void field(String key, boolean value) throws IOException {
+    if (!value)
+      return;
+    key(key);
+    out.write("true");
+  }
+
+  public void modifiers(Set<JavaModifier> modifiers) throws IOException {
+    if (modifiers == null)
+      return;
+    key("modifiers");
+    begin('[');
+    for (var m : modifiers) {
+      next();
+      string(m.toString().toLowerCase());
+    }
+    end(']');
+  }
+
+  public void use(JavaTypeUse use) throws IOException {
+    if (use == null) {
+      out.write("null");
+      return;
+    }
+    var id = ids.get(use);
+    begin('{');
+    if (id != null) {
+      key("ref");
+      out.write(String.valueOf(id));
+      end('}');
+      return;
+    }
+    id = ids.size();
+    ids.put(use, id);
+    key("id");
+    out.write(String.valueOf(id));
+    if (use.type != null)
+      field("type", use.type.classpath);
+    if (use.typeG != null)
+      field("var", use.typeG);
+    if (use.typeC != null) {
+      key("array");
+      use(use.typeC);
+    }
+    uses("generics", use.generics);
+    uses("upper", use.upper);
+    uses("lower", use.lower);
+    end('}');
+  }
+
+  public void uses(String key, Collection<JavaTypeUse> list) throws IOException {
+    if (list == null || list.isEmpty())
+      return;
+    key(key);
+    begin('[');
+    for (var use : list) {
+      next();
+      use(use);
+    }
+    end(']');
+  }
+
+  public void method(JavaMethod method) throws IOException {
+    begin('{');
+    field("name", method.name);
+    modifiers(method.modifiers);
+    uses("generics", method.generics);
+    if (method.paramaters != null && !method.paramaters.isEmpty()) {
+      key("paramaters");
+      begin('[');
+      for (var p : method.paramaters) {
+        next();
+        begin('{');
+        field("name", p.name);
+        key("type");
+        use(p.type);
+        field("nullable", p.nullable);
+        end('}');
+      }
+      end(']');
+    }
+    if (method.result != null) {
+      key("result");
+      use(method.result);
+    }
+    field("varArgs", method.varArgs);
+    field("nullable", method.nullable);
+    field("synthetic", method.synthetic);
+    end('}');
+  }
+
+  public void methods(String key, List<JavaMethod> list) throws IOException {
+    if (list == null || list.isEmpty())
+      return;
+    key(key);
+    begin('[');
+    for (var m : list) {
+      next();
+      method(m);
+    }
+    end(']');
+  }
+
+  public void type(JavaType type) throws IOException {
+    begin('{');
+    field("name", type.name);
+    field("classpath", type.classpath);
+    modifiers(type.modifiers);
+    field("inner", type.inner);
+    field("interface", type.isInterface);
+    field("enum", type.isEnum);
+    uses("generics", type.generics);
+    if (type.superType != null) {
+      key("superType");
+      use(type.superType);
+    }
+    uses("interfaces", type.interfaces);
+    if (type.fields != null && !type.fields.isEmpty()) {
+      key("fields");
+      begin('[');
+      for (var f : type.fields) {
+        next();
+        begin('{');
+        field("name", f.name);
+        modifiers(f.modifiers);
+        key("type");
+        use(f.type);
+        field("nullable", f.nullable);
+        field("enumConstant", f.enumConstant);
+        field("synthetic", f.synthetic);
+        end('}');
+      }
+      end(']');
+    }
+    methods("constructors", type.constructors);
+    methods("methods", type.methods);
+    if (type.classes != null && !type.classes.isEmpty()) {
+      key("classes");
+      begin('[');
+      for (var c : type.classes) {
+        next();
+        string(c.classpath);
+      }
+      end(']');
+    }
+    end('}');
+  }
+
+  public void write(Collection<JavaType> types, Writer writer) throws IOException {
+    out = writer;
+    ids.clear();
+    first.clear();
+    depth = 0;
+    begin('[');
+    for (var type : types) {
+      next();
+      type(type);
+    }
+    end(']');
+    newline();
+    out.flush();
+  }
+
+  // values in parse order, then the types only found in the map sorted by classpath
+  public List<JavaType> types(Map<String, JavaType> map, List<JavaType> values) {
+    var res = new ArrayList<JavaType>(values);
+    var seen = Collections.newSetFromMap(new IdentityHashMap<JavaType, Boolean>());
+    seen.addAll(values);
+    for (var key : new TreeSet<>(map.keySet()))
+      if (seen.add(map.get(key)))
+        res.add(map.get(key));
+    return res;
+  }
+
+  @Override
+  public void write(Map<String, JavaType> map, List<JavaType> values, OutputStream stream)
+      throws IOException {
+    var writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    write(types(map, values), writer);
+  }
+
+  @Override
+  public String generate(Map<String, JavaType> map, List<JavaType> values) {
+    var str = new StringWriter();
+    try {
+      write(types(map, values), str);
+    } catch (IOException err) {
+      throw new UncheckedIOException(err);
+    }
+    return str.toString();
+  }
+}
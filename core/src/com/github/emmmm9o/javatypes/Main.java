@@ -0,0 +1,114 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class Main {
+  public static final String usage = """
+      usage: java -jar core.jar <config>                 generate once
+             java -jar core.jar <config> --daemon [port] keep the model in memory, see Daemon
+             java -jar core.jar <config> --watch         regenerate when classes change
+             java -jar core.jar <config> --train         generate to a temporary place, for a
+                                                         CDS archive of the classes a run loads
+             java -jar core.jar --train                  the same over a few jdk types
+      """;
+
+  public static void run(Config config) throws IOException {
+    long time = System.nanoTime();
+    var failed = new ArrayList<String>();
+    try (var loader = config.loader(Main.class.getClassLoader())) {
+      Parser parser;
+      List<String> files;
+      var generator = config.generator();
+      if (config.cache != null) {
+        var incremental = new Incremental(config);
+        Set<String> only = null;
+        if (incremental.load(config.cache))
+          only = incremental.update(loader);
+        else
+          incremental.parse(loader);
+        parser = incremental.parser;
+        failed.addAll(incremental.failed);
+        files = config.write(generator, parser, only);
+        incremental.save(config.cache);
+      } else {
+        parser = config.parser();
+        config.parse(parser, loader, failed);
+        files = config.write(generator, parser);
+      }
+      for (var f : failed)
+        System.err.println("skipped " + f);
+      // what maxDepth, maxBounds and recursiveBounds replaced with any
+      for (var s : generator.simplified)
+        System.err.println("simplified " + s);
+      System.err.println(parser.values.size() + " types, " + files.size() + " files written in "
+          + (System.nanoTime() - time) / 1000000 + "ms");
+    }
+  }
+
+  // a real run over the config that leaves no output, cache or manifest behind. run it with
+  // -XX:ArchiveClassesAtExit to get a startup archive of the classes that run loads
+  public static void train(Config config) throws IOException {
+    var dir = Files.createTempDirectory("java-types");
+    config.output = config.split ? dir : dir.resolve("index.d.ts");
+    config.cache = null;
+    config.manifest = null;
+    try {
+      run(config);
+    } finally {
+      try (var files = Files.walk(dir)) {
+        for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+          Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  public static void train() throws IOException {
+    var config = new Config();
+    config.classes.addAll(List.of("java.lang.Object", "java.util.ArrayList", "java.util.HashMap",
+        "java.util.concurrent.ConcurrentHashMap", "java.util.function.Function",
+        "java.util.stream.Collectors"));
+    config.filter.addAll(List.of("java.lang.", "java.io.", "java.nio.", "jdk.", "sun."));
+    train(config);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 1 && args[0].equals("--train")) {
+      train();
+      return;
+    }
+    if (args.length < 1 || args[0].startsWith("--")) {
+      System.err.print(usage);
+      System.exit(1);
+    }
+    var config = Config.load(Path.of(args[0]));
+    if (args.length > 1 && args[1].equals("--daemon")) {
+      var daemon = new Daemon(config);
+      daemon.load();
+      if (args.length > 2)
+        daemon.serve(Integer.parseInt(args[2]));
+      else
+        daemon.serve();
+      return;
+    }
+    if (args.length == 2 && args[1].equals("--train")) {
+      train(config);
+      return;
+    }
+    if (args.length == 2 && args[1].equals("--watch")) {
+      try {
+        new Watcher(config).run();
+      } catch (InterruptedException err) {
+        Thread.currentThread().interrupt();
+      }
+      return;
+    }
+    if (args.length > 1) {
+      System.err.print(usage);
+      System.exit(1);
+    }
+    run(config);
+  }
+}
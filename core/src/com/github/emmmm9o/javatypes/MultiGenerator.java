@@ -0,0 +1,72 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Runs every registered generator concurrently over one parsed model. Generators keep their own
+ * state, so each backend needs its own instance (a JSPreludeGenerator must not share its
+ * TSGenerator with a registered one).
+ */
+public class MultiGenerator {
+  public Map<String, Generator> generators = new LinkedHashMap<>();
+  public ExecutorService executor = ForkJoinPool.commonPool();
+  public OutputWriter writer = new OutputWriter();
+
+  public MultiGenerator register(String file, Generator generator) {
+    generators.put(file, generator);
+    return this;
+  }
+
+  // file name to output, in registration order
+  public Map<String, byte[]> generate(Map<String, JavaType> map, List<JavaType> values)
+      throws IOException {
+    var view = Collections.unmodifiableMap(map);
+    var list = Collections.unmodifiableList(values);
+    var futures = new LinkedHashMap<String, Future<byte[]>>();
+    for (var entry : generators.entrySet()) {
+      var generator = entry.getValue();
+      futures.put(entry.getKey(), executor.submit(() -> {
+        var out = new ByteArrayOutputStream();
+        generator.write(view, list, out);
+        return out.toByteArray();
+      }));
+    }
+    var res = new LinkedHashMap<String, byte[]>();
+    try {
+      for (var entry : futures.entrySet())
+        res.put(entry.getKey(), entry.getValue().get());
+    } catch (InterruptedException err) {
+      for (var future : futures.values())
+        future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException err) {
+      for (var future : futures.values())
+        future.cancel(true);
+      var cause = err.getCause();
+      if (cause instanceof IOException io)
+        throw io;
+      if (cause instanceof RuntimeException run)
+        throw run;
+      throw new RuntimeException(cause);
+    }
+    return res;
+  }
+
+  // returns the names of the files that were rewritten
+  public List<String> write(Path dir, Map<String, JavaType> map, List<JavaType> values)
+      throws IOException {
+    Files.createDirectories(dir);
+    var res = new ArrayList<String>();
+    for (var entry : generate(map, values).entrySet())
+      if (writer.write(dir.resolve(entry.getKey()), entry.getValue()))
+        res.add(entry.getKey());
+    return res;
+  }
+}
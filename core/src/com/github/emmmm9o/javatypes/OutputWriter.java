@@ -0,0 +1,82 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class OutputWriter {
+  public ForkJoinPool pool = ForkJoinPool.commonPool();
+  // leave files whose content hash already matches, so watchers see no change
+  public boolean skipUnchanged = true;
+
+  public static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException err) {
+      throw new RuntimeException(err);
+    }
+  }
+
+  public static byte[] hash(Path file) throws IOException {
+    var md = digest();
+    var buf = ByteBuffer.allocate(1 << 16);
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buf) != -1) {
+        buf.flip();
+        md.update(buf);
+        buf.clear();
+      }
+    }
+    return md.digest();
+  }
+
+  public boolean unchanged(Path file, byte[] bytes) throws IOException {
+    if (!skipUnchanged || !Files.isRegularFile(file) || Files.size(file) != bytes.length)
+      return false;
+    return MessageDigest.isEqual(hash(file), digest().digest(bytes));
+  }
+
+  // returns false when the file was left untouched
+  public boolean write(Path file, String content) throws IOException {
+    return write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public boolean write(Path file, byte[] bytes) throws IOException {
+    if (unchanged(file, bytes))
+      return false;
+    var buf = ByteBuffer.wrap(bytes);
+    try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buf.hasRemaining())
+        channel.write(buf);
+    }
+    return true;
+  }
+
+  // returns the names of the files that were rewritten
+  public List<String> write(Path dir, Map<String, String> files) throws IOException {
+    Files.createDirectories(dir);
+    try {
+      return pool.submit(() -> files.entrySet().parallelStream().filter(e -> {
+        try {
+          return write(dir.resolve(e.getKey()), e.getValue());
+        } catch (IOException err) {
+          throw new UncheckedIOException(err);
+        }
+      }).map(Map.Entry::getKey).toList()).get();
+    } catch (InterruptedException err) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException err) {
+      if (err.getCause() instanceof UncheckedIOException io)
+        throw io.getCause();
+      throw new RuntimeException(err.getCause());
+    }
+  }
+}
@@ -29,6 +29,8 @@ public class Parser {
   public Map<String, Boolean> supMap = new HashMap<>();
   public List<JavaType> values = new ArrayList<>();
   public Map<Type, JavaTypeUse> typeMap = new HashMap<>();
+  // reflection does not specify member order, sort so runs emit the same output
+  public boolean sortMembers = true;
 
   public void put(Class<?> clazz) {
     var tmp = new JavaType(clazz);
@@ -61,7 +63,7 @@ public class Parser {
   }
 
   public static Set<JavaModifier> getModifiers(int value) {
-    var res = new HashSet<JavaModifier>();
+    var res = EnumSet.noneOf(JavaModifier.class);
     if (Modifier.isPublic(value))
       res.add(JavaModifier.Public);
     if (Modifier.isProtected(value))
@@ -171,6 +173,26 @@ public class Parser {
     return getTypes(gsu.getActualTypeArguments());
   }
 
+  public static String signature(Executable exe) {
+    var str = new StringBuilder();
+    str.append(exe.getName()).append("(");
+    for (var p : exe.getParameterTypes())
+      str.append(p.getTypeName()).append(",");
+    str.append(")");
+    if (exe instanceof Method method)
+      str.append(method.getReturnType().getTypeName());
+    return str.toString();
+  }
+
+  public <T> T[] sorted(T[] arr) {
+    if (!sortMembers)
+      return arr;
+    arr = arr.clone();
+    Arrays.sort(arr, Comparator.comparing(o -> o instanceof Executable exe ? signature(exe)
+        : (o instanceof Class<?> c ? c.getName() : ((Member) o).getName())));
+    return arr;
+  }
+
   public JavaType parse(Class<?> clazz) {
     return parse(clazz, false);
   }
@@ -200,20 +222,22 @@ public class Parser {
     for (var intf : clazz.getGenericInterfaces()) {
       tmp.interfaces.add(getType(intf, true));
     }
-    for (var claz : clazz.getDeclaredClasses()) {
+    for (var claz : sorted(clazz.getDeclaredClasses())) {
       tmp.classes.add(parse(claz));
     }
-    for (var field : clazz.getDeclaredFields()) {
+    for (var field : sorted(clazz.getDeclaredFields())) {
       tmp.fields.add(new JavaField() {
         {
           type = getType(field.getGenericType());
           name = field.getName();
           modifiers = getModifiers(field.getModifiers());
           nullable = fnull.check(field);
+          enumConstant = field.isEnumConstant();
+          synthetic = field.isSynthetic();
         }
       });
     }
-    for (var method : clazz.getConstructors()) {
+    for (var method : sorted(clazz.getConstructors())) {
       tmp.constructors.add(new JavaMethod() {
         {
           varArgs = method.isVarArgs();
@@ -223,6 +247,7 @@ public class Parser {
           paramaters = new ArrayList<>();
           generics = getTypes(method.getTypeParameters());
           cref=method;
+          synthetic = method.isSynthetic();
           var pt = method.getParameters();
           nullable = false;
           for (var p : pt) {
@@ -237,7 +262,7 @@ public class Parser {
         }
       });
     }
-    for (var method : clazz.getDeclaredMethods()) {
+    for (var method : sorted(clazz.getDeclaredMethods())) {
       tmp.methods.add(new JavaMethod() {
         {
           varArgs = method.isVarArgs();
@@ -250,6 +275,7 @@ public class Parser {
           var pts = method.getGenericParameterTypes();
           var pt = method.getParameters();
           mref=method;
+          synthetic = method.isSynthetic();
           for (var p : pt) {
             paramaters.add(new JavaParamater() {
               {
@@ -0,0 +1,210 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * Runs discovery, class loading, parsing, rendering and writing as stages connected by bounded
+ * queues. Loading and rendering run on several threads and are put back in order before the next
+ * stage, so the output matches TSGenerator.generate for the same classes. Parsing stays on one
+ * thread since the Parser is not thread safe.
+ *
+ * Options that need the whole model first (roots, hoist, exclude, multi-file output) are not
+ * supported here. With functional or dropRedundant set rendering waits until every class is
+ * parsed, since both look at the types that implement or extend the one being rendered.
+ */
+public class Pipeline {
+  public static class Item<T> {
+    public int index;
+    public T value;
+
+    public Item(int index, T value) {
+      this.index = index;
+      this.value = value;
+    }
+  }
+
+  public static final Item<?> end = new Item<>(-1, null);
+
+  public Parser parser;
+  public TSGenerator generator;
+  public ClassLoader loader;
+  public int queueSize = 256;
+  public int loaders = 2;
+  public int renderers = Runtime.getRuntime().availableProcessors();
+  public List<String> failed = Collections.synchronizedList(new ArrayList<>());
+
+  public Pipeline(Parser parser, TSGenerator generator, ClassLoader loader) {
+    this.parser = parser;
+    this.generator = generator;
+    this.loader = loader;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> Item<T> end() {
+    return (Item<T>) end;
+  }
+
+  public static interface Stage {
+    void run() throws Exception;
+  }
+
+  public void run(Iterable<String> names, Writer out) throws IOException {
+    if (!generator.roots.isEmpty() || generator.hoist || !generator.exclude.isEmpty())
+      throw new IllegalStateException("roots, hoist and exclude need the whole model");
+    generator.prepare(parser.classMap, List.of());
+    var whole = generator.functional || generator.dropRedundant;
+    var discovered = new ArrayBlockingQueue<Item<String>>(queueSize);
+    var loaded = new ArrayBlockingQueue<Item<Class<?>>>(queueSize);
+    var parsed = new ArrayBlockingQueue<Item<JavaType>>(queueSize);
+    var rendered = new ArrayBlockingQueue<Item<String>>(queueSize);
+    var modules = new ConcurrentHashMap<JavaType, TSGenerator.TSModule>();
+    var error = new AtomicReference<Throwable>();
+    var executor = Executors.newFixedThreadPool(loaders + renderers + 3);
+    var stages = new ArrayList<Stage>();
+    stages.add(() -> {
+      int i = 0;
+      for (var name : names)
+        discovered.put(new Item<>(i++, name));
+      for (int j = 0; j < loaders; j++)
+        discovered.put(end());
+    });
+    for (int j = 0; j < loaders; j++) {
+      stages.add(() -> {
+        while (true) {
+          var item = discovered.take();
+          if (item == end) {
+            loaded.put(end());
+            return;
+          }
+          Class<?> clazz = null;
+          try {
+            clazz = Class.forName(item.value, false, loader);
+            if (clazz.isAnonymousClass() || clazz.isLocalClass() || clazz.isSynthetic())
+              clazz = null;
+          } catch (LinkageError | ClassNotFoundException err) {
+            failed.add(item.value + ": " + err);
+          }
+          // forwarded even when empty so the parse stage can keep the order
+          loaded.put(new Item<>(item.index, clazz));
+        }
+      });
+    }
+    stages.add(() -> {
+      var pending = new HashMap<Integer, Class<?>>();
+      var held = new ArrayList<Item<JavaType>>();
+      int next = 0;
+      int ended = 0;
+      int index = 0;
+      while (ended < loaders) {
+        var item = loaded.take();
+        if (item == end) {
+          ended++;
+          continue;
+        }
+        pending.put(item.index, item.value);
+        while (pending.containsKey(next)) {
+          var clazz = pending.remove(next++);
+          if (clazz == null)
+            continue;
+          int before = parser.values.size();
+          try {
+            parser.parse(clazz);
+          } catch (LinkageError err) {
+            // like Config.parse, a missing optional dependency only skips this class. types
+            // parsed before the error are in values and still rendered
+            failed.add(clazz.getName() + ": " + err);
+          }
+          for (var v : new ArrayList<>(parser.values.subList(before, parser.values.size()))) {
+            generator.modifierJavaType(v);
+            modules.put(v, generator.getModule(generator.getModulePath(v)));
+            var parsedItem = new Item<>(index++, v);
+            if (whole)
+              held.add(parsedItem);
+            else
+              parsed.put(parsedItem);
+          }
+        }
+      }
+      if (whole) {
+        generator.index(parser.classMap);
+        for (var item : held)
+          parsed.put(item);
+      }
+      for (int j = 0; j < renderers; j++)
+        parsed.put(end());
+    });
+    for (int j = 0; j < renderers; j++) {
+      stages.add(() -> {
+        while (true) {
+          var item = parsed.take();
+          if (item == end) {
+            rendered.put(end());
+            return;
+          }
+          var v = item.value;
+          rendered.put(new Item<>(item.index, generator.merged ? generator.generateBody(v)
+              : generator.generateModule(modules.get(v), v)));
+        }
+      });
+    }
+    stages.add(() -> {
+      var pending = new HashMap<Integer, String>();
+      var bodies = new ArrayList<String>();
+      int next = 0;
+      int ended = 0;
+      out.write(generator.generateHeader());
+      while (ended < renderers) {
+        var item = rendered.take();
+        if (item == end) {
+          ended++;
+          continue;
+        }
+        pending.put(item.index, item.value);
+        while (pending.containsKey(next)) {
+          var str = pending.remove(next++);
+          if (generator.merged)
+            bodies.add(str);
+          else
+            out.write(str);
+        }
+      }
+      // parser.values also holds types parsed before the run
+      var values = parser.values.subList(parser.values.size() - next, parser.values.size());
+      if (generator.merged)
+        out.write(generator.generateMerged(values, bodies));
+      out.write(generator.generateGlobals(values));
+      out.flush();
+    });
+    for (var stage : stages) {
+      executor.execute(() -> {
+        try {
+          stage.run();
+        } catch (Throwable err) {
+          if (error.compareAndSet(null, err))
+            executor.shutdownNow();
+        }
+      });
+    }
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS));
+    } catch (InterruptedException err) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    var err = error.get();
+    if (err instanceof IOException io)
+      throw io;
+    if (err instanceof RuntimeException run)
+      throw run;
+    if (err != null)
+      throw new RuntimeException(err);
+  }
+}
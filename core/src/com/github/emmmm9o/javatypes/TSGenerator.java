@@ -1,12 +1,18 @@
 /* (C) 2025 */
 package com.github.emmmm9o.javatypes;
 
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
 import java.lang.reflect.*;
 
 import com.github.emmmm9o.javatypes.JavaTypes.*;
 
-public class TSGenerator implements Generator {
+public class TSGenerator implements TextGenerator {
   public String getModulePath(JavaType type) {
     String obj =
         type.classpath.replace("$", ".").substring(0, type.classpath.length() - type.name.length());
@@ -31,14 +37,14 @@ public class TSGenerator implements Generator {
 
     public TSModule() {
       name = "";
-      modules = new HashMap<>();
-      types = new HashMap<>();
+      modules = new TreeMap<>();
+      types = new TreeMap<>();
     }
 
     public TSModule(String name) {
       this.name = name;
-      modules = new HashMap<>();
-      types = new HashMap<>();
+      modules = new TreeMap<>();
+      types = new TreeMap<>();
     }
   }
 
@@ -81,6 +87,25 @@ public class TSGenerator implements Generator {
     }
   }
 
+  public boolean compact = false;
+
+  public String nl() {
+    return compact ? "" : "\n";
+  }
+
+  public String comment(String info) {
+    if (compact)
+      return info.isEmpty() ? "" : "/*" + info + "*/";
+    return "/*" + info + "*/\n";
+  }
+
+  public void indent(String input, StringBuilder sb) {
+    if (compact)
+      sb.append(input);
+    else
+      addSpaces(input, sb);
+  }
+
   public Map<String, String> trefs = new HashMap<>();
   public Map<String, Boolean> noG = new HashMap<>();
   public Map<String, String> cmap = new HashMap<>();
@@ -134,11 +159,15 @@ public class TSGenerator implements Generator {
   }
 
   public String generateGenerics(List<JavaTypeUse> generics, boolean up) {
+    return generateGenerics(generics, up, 0);
+  }
+
+  public String generateGenerics(List<JavaTypeUse> generics, boolean up, int depth) {
     var str = new StringBuilder();
     if (generics != null && !generics.isEmpty()) {
       str.append("<");
       for (var t : generics) {
-        str.append(generateTypeUse(t, up)).append(",");
+        str.append(generateTypeUse(t, up, depth)).append(",");
       }
       str.deleteCharAt(str.length() - 1);
       str.append(">");
@@ -151,13 +180,118 @@ public class TSGenerator implements Generator {
   }
 
   public String generateTypeUse(JavaTypeUse type, boolean up) {
+    return generateTypeUse(type, up, 0);
+  }
+
+  public String generateTypeUse(JavaTypeUse type, boolean up, int depth) {
+    if (hoistable(type)) {
+      if (recording) {
+        var key = hoistKeys.get(type);
+        if (key == null) {
+          key = probe(() -> renderTypeUse(type, false));
+          hoistKeys.put(type, key);
+        }
+        if (probing == 0)
+          hoistCounts.merge(key, 1, Integer::sum);
+      } else {
+        var key = hoistKeys.get(type);
+        var alias = key == null ? null : hoisted.get(key);
+        if (alias != null)
+          return alias;
+      }
+    }
+    // leaves are cheap, only instantiations nested past the budget are cut
+    if (depth > maxDepth && type.generics != null && !type.generics.isEmpty()) {
+      simplified.add("depth " + depth + " > " + maxDepth + ": " + describe(type) + where());
+      return "any";
+    }
+    return renderTypeUse(type, up, depth);
+  }
+
+  public int maxDepth = Integer.MAX_VALUE;
+  public int maxBounds = Integer.MAX_VALUE;
+  public boolean recursiveBounds = true;
+  // what the budget replaced in the last run, sorted so parallel runs report the same
+  public Set<String> simplified = new ConcurrentSkipListSet<>();
+
+  // the type or member being rendered, names one place per entry of simplified
+  public ThreadLocal<String> location = new ThreadLocal<>();
+
+  public String located(String where, Supplier<String> func) {
+    var old = location.get();
+    location.set(where);
+    try {
+      return func.get();
+    } finally {
+      location.set(old);
+    }
+  }
+
+  // members are rendered inside their type, see generateBody
+  public String member(String name) {
+    var type = location.get();
+    return type == null ? name : type + "." + name;
+  }
+
+  public String where() {
+    var l = location.get();
+    return l == null ? "" : " in " + l;
+  }
+
+  public static String describe(JavaTypeUse type) {
+    if (type.typeRef != null)
+      return type.typeRef.getTypeName();
+    if (type.type != null)
+      return type.type.classpath;
+    return type.typeG != null ? type.typeG : "[]";
+  }
+
+  public static boolean references(JavaTypeUse use, String name, Set<JavaTypeUse> visited) {
+    if (use == null || !visited.add(use))
+      return false;
+    if (name.equals(use.typeG))
+      return true;
+    if (references(use.typeC, name, visited))
+      return true;
+    for (var list : Arrays.asList(use.generics, use.upper, use.lower)) {
+      if (list == null)
+        continue;
+      for (var t : list)
+        if (references(t, name, visited))
+          return true;
+    }
+    return false;
+  }
+
+  public List<JavaTypeUse> bounds(JavaTypeUse type, List<JavaTypeUse> upper) {
+    if (upper.size() > maxBounds) {
+      simplified.add(
+          "bounds " + upper.size() + " > " + maxBounds + ": " + describe(type) + where());
+      return List.of();
+    }
+    if (!recursiveBounds && type.typeG != null) {
+      for (var t : upper) {
+        if (references(t, type.typeG, Collections.newSetFromMap(new IdentityHashMap<>()))) {
+          simplified.add("recursive bound: " + describe(type) + where());
+          return List.of();
+        }
+      }
+    }
+    return upper;
+  }
+
+  public String renderTypeUse(JavaTypeUse type, boolean up) {
+    return renderTypeUse(type, up, 0);
+  }
+
+  public String renderTypeUse(JavaTypeUse type, boolean up, int depth) {
     var str = new StringBuilder();
     if (type.typeG == "?")
       str.append("any");
     else if (type.typeG != null)
       str.append(type.typeG);
     if (type.typeC != null)
-      str.append(generateTypeUse(type.typeC, false)).append("[]");
+      str.append(generateTypeUse(type.typeC, false, depth + 1)).append("[]");
     if (type.type != null)
       str.append(getType(type.type));
     if (type.type != null && type.generics.isEmpty() && !type.type.generics.isEmpty()) {
@@ -168,21 +302,22 @@ public class TSGenerator implements Generator {
       }
       str.append(">");
     }
-    str.append(generateGenerics(type.generics));
-    if (type.upper != null && !type.upper.isEmpty()) {
-      var tm = new ArrayList<JavaTypeUse>();
+    str.append(generateGenerics(type.generics, false, depth + 1));
+    // uses are shared between types, so filter a copy instead of writing back
+    var upper = new ArrayList<JavaTypeUse>();
+    if (type.upper != null) {
       for (var t : type.upper) {
         if (t.type != null && t.type.classpath == "java.lang.Object")
           continue;
-        tm.add(t);
+        upper.add(t);
       }
-      type.upper = tm;
     }
-    if (type.upper != null && !type.upper.isEmpty()
-        && (up || (type.typeG == null || type.typeG == null))) {
+    if (!upper.isEmpty() && (up || (type.typeG == null || type.typeG == null)))
+      upper = new ArrayList<>(bounds(type, upper));
+    if (!upper.isEmpty() && (up || (type.typeG == null || type.typeG == null))) {
       str.append(" extends ");
-      for (var t : type.upper) {
-        str.append(generateTypeUse(t, false)).append("&");
+      for (var t : upper) {
+        str.append(generateTypeUse(t, false, depth + 1)).append("&");
       }
       str.deleteCharAt(str.length() - 1);
     }
@@ -201,17 +336,26 @@ public class TSGenerator implements Generator {
     var str = new StringBuilder();
     if (modifier != null)
       for (var m : modifier) {
-        str.append(generateMoifier(m)).append(" ");
+        var tmp = generateMoifier(m);
+        if (compact && tmp.isEmpty())
+          continue;
+        str.append(tmp).append(" ");
       }
     return str.toString();
   }
 
   public String generateField(JavaField field) {
+    return located(member(field.name), () -> generateFieldIn(field));
+  }
+
+  public String generateFieldIn(JavaField field) {
     var str = new StringBuilder();
-    str.append("/*").append(finfo.get(field)).append("*/\n");
-    str.append(generateMoifiers(field.modifiers))
+    str.append(comment(finfo.get(field)));
+    var constant = enums && field.enumConstant;
+    str.append(generateMoifiers(field.modifiers)).append(constant ? "readonly " : "")
         .append(field.name.replace("constructor", "_constructor"))
-        .append(field.nullable ? "?:" : ":").append(generateTypeUse(field.type)).append(";\n");
+        .append(field.nullable && !constant ? "?:" : ":").append(generateTypeUse(field.type))
+        .append(";").append(nl());
     return str.toString();
   }
 
@@ -220,7 +364,7 @@ public class TSGenerator implements Generator {
     str.append("_" + paramater.name).append(":").append(getPSuf(paramater))
         .append(generateTypeUse(paramater.type));
     if (paramater.nullable)
-      str.append(" | null");
+      str.append(compact ? "|null" : " | null");
     return str.toString();
   }
 
@@ -256,33 +400,176 @@ public class TSGenerator implements Generator {
 
 
   public String generateMethod(JavaMethod method) {
+    return generateMethod(method, null);
+  }
+
+  // mods replaces the rendered modifiers, "" for interface members or "function " in namespaces
+  public String generateMethod(JavaMethod method, String mods) {
 
     if (method.name != null && method.name.contains("$"))
       return "";
+    return located(member(method.name == null ? "constructor" : method.name),
+        () -> comment(method.name == null ? coinfo.get(method) : minfo.get(method))
+            + generateSignature(method, mods) + nl());
+  }
+
+  public String generateHead(JavaMethod method) {
+    return generateHead(method, null);
+  }
+
+  public String generateHead(JavaMethod method, String mods) {
     var str = new StringBuilder();
-    str.append("/*");
-    if (method.name == null)
-      str.append(coinfo.get(method));
-    else
-      str.append(minfo.get(method));
-    str.append("*/\n").append(generateMoifiers(method.modifiers))
+    str.append(mods == null ? generateMoifiers(method.modifiers) : mods)
         .append(method.name == null ? "constructor" : method.name)
         .append(generateGenerics(method.generics, true))
         .append(generateParamaters(method.paramaters, method.varArgs));
+    return str.toString();
+  }
+
+  public String generateResult(JavaMethod method) {
+    var str = new StringBuilder();
     if (method.result != null) {
-      str.append(":").append(generateTypeUse(method.result));
+      str.append(generateTypeUse(method.result));
       if (method.result.type == null || method.result.type.name != "void" && method.nullable)
         str.append("|null");
     }
-    str.append(";\n");
     return str.toString();
   }
 
+  public String generateSignature(JavaMethod method) {
+    return generateSignature(method, null);
+  }
+
+  public String generateSignature(JavaMethod method, String mods) {
+    var str = new StringBuilder();
+    str.append(generateHead(method, mods));
+    if (method.result != null)
+      str.append(":").append(generateResult(method));
+    str.append(";");
+    return str.toString();
+  }
+
+  public boolean collapseOverloads = false;
+
+  // parameter names are ignored, only what typescript checks against
+  public String overloadKey(JavaMethod method) {
+    return probe(() -> overloadKeyIn(method));
+  }
+
+  public String overloadKeyIn(JavaMethod method) {
+    var str = new StringBuilder();
+    str.append(generateMoifiers(method.modifiers)).append(method.name)
+        .append(generateGenerics(method.generics, true)).append("(");
+    for (int i = 0; i < method.paramaters.size(); i++) {
+      var p = method.paramaters.get(i);
+      if (method.varArgs && i == method.paramaters.size() - 1)
+        str.append("...");
+      str.append(getPSuf(p)).append(generateTypeUse(p.type)).append(p.nullable ? "?," : ",");
+    }
+    return str.append(")").toString();
+  }
+
+  // overloads that render to the same parameters, like int/float/double ones, become one
+  // signature whose result is the union of their results
+  public void generateMethods(List<JavaMethod> methods, String in, StringBuilder str) {
+    generateMethods(methods, in, str, null);
+  }
+
+  public void generateMethods(List<JavaMethod> methods, String in, StringBuilder str,
+      String mods) {
+    if (!collapseOverloads) {
+      for (var method : methods)
+        str.append(in).append(generateMethod(method, mods));
+      return;
+    }
+    var groups = new LinkedHashMap<String, List<JavaMethod>>();
+    for (var method : methods) {
+      if (method.name != null && method.name.contains("$"))
+        continue;
+      groups.computeIfAbsent(overloadKey(method), k -> new ArrayList<>()).add(method);
+    }
+    for (var group : groups.values()) {
+      var first = group.get(0);
+      if (group.size() == 1) {
+        str.append(in).append(generateMethod(first, mods));
+        continue;
+      }
+      str.append(located(member(first.name == null ? "constructor" : first.name),
+          () -> generateGroup(group, in, mods)));
+    }
+  }
+
+  public String generateGroup(List<JavaMethod> group, String in, String mods) {
+    var first = group.get(0);
+    var results = new LinkedHashSet<String>();
+    var nullable = false;
+    for (var method : group) {
+      var result = generateResult(method);
+      if (result.endsWith("|null")) {
+        nullable = true;
+        result = result.substring(0, result.length() - 5);
+      }
+      results.add(result);
+    }
+    var str = new StringBuilder();
+    str.append(in).append(comment(first.name == null ? coinfo.get(first) : minfo.get(first)))
+        .append(generateHead(first, mods));
+    if (first.result != null)
+      str.append(":").append(String.join("|", results)).append(nullable ? "|null" : "");
+    str.append(";").append(nl());
+    return str.toString();
+  }
+
+  public boolean dropRedundant = false;
+  public Map<JavaType, Map<String, Set<String>>> inheritedMap = new ConcurrentHashMap<>();
+
+  // signatures typescript sees on a class through extends, implements adds no members
+  public Map<String, Set<String>> inherited(JavaType type) {
+    if (type == null || noG.getOrDefault(type.classpath, false) || cmap.containsKey(type.classpath)
+        || stubs.contains(type.classpath))
+      return Map.of();
+    var res = inheritedMap.get(type);
+    if (res != null)
+      return res;
+    res = new HashMap<>();
+    for (var entry : inherited(type.superType == null ? null : type.superType.type).entrySet())
+      res.put(entry.getKey(), new HashSet<>(entry.getValue()));
+    for (var m : type.methods) {
+      if (m.synthetic || m.name.contains("$"))
+        continue;
+      res.computeIfAbsent(m.name, k -> new HashSet<>()).add(probe(() -> generateSignature(m)));
+    }
+    inheritedMap.put(type, res);
+    return res;
+  }
+
+  // a name is only dropped when every overload is inherited unchanged, redeclaring part of
+  // the overloads would hide the rest in typescript
+  public List<JavaMethod> methods(JavaType type) {
+    if (!dropRedundant)
+      return type.methods;
+    var sup = inherited(type.superType == null ? null : type.superType.type);
+    var kept = new HashSet<String>();
+    for (var m : type.methods) {
+      if (m.synthetic || kept.contains(m.name))
+        continue;
+      var set = sup.get(m.name);
+      if (set == null || !set.contains(probe(() -> generateSignature(m))))
+        kept.add(m.name);
+    }
+    var res = new ArrayList<JavaMethod>();
+    for (var m : type.methods) {
+      if (!m.synthetic && kept.contains(m.name))
+        res.add(m);
+    }
+    return res;
+  }
+
   public String generateType(JavaType type) {
     if (noG.getOrDefault(type.classpath, false))
       return "";// skip
     var str = new StringBuilder();
-    str.append("/*").append(cinfo.get(type)).append("*/\n");
+    str.append(comment(cinfo.get(type)));
     if (!type.inner)
       str.append("declare ")
           .append(type.modifiers.contains(JavaModifier.Abstract) ? "abstract " : "").append(
@@ -300,7 +587,7 @@ public class TSGenerator implements Generator {
             ? " extends " + generateTypeUse(type.superType)
             : (type.superType != null && type.superType.type != null
                 && type.superType.type.classpath == "java.lang.Object" ? " extends java.lang.Object"
-                    : " "));
+                    : (compact ? "" : " ")));
     if (type.interfaces != null & !type.interfaces.isEmpty()) {
       str.append(" implements ");
       for (var i : type.interfaces) {
@@ -309,20 +596,17 @@ public class TSGenerator implements Generator {
 
       str.deleteCharAt(str.length() - 1);
     }
-    str.append(" {\n");
+    var in = compact ? "" : "  ";
+    str.append(compact ? "{" : " {\n");
     for (var c : type.classes) {
-      addSpaces(generateType(c), str);
-    }
-    for (var field : type.fields) {
-      str.append("  ").append(generateField(field));
-    }
-    for (var method : type.methods) {
-      str.append("  ").append(generateMethod(method));
+      indent(located(c.classpath, () -> generateType(c)), str);
     }
-    for (var method : type.constructors) {
-      str.append("  ").append(generateMethod(method));
+    for (var field : fields(type)) {
+      str.append(in).append(generateField(field));
     }
-    str.append("}\n");
+    generateMethods(methods(type), in, str);
+    generateMethods(type.constructors, in, str);
+    str.append("}").append(nl());
     return str.toString();
   }
 
@@ -350,6 +634,198 @@ public class TSGenerator implements Generator {
     return str.toString();
   }
 
+  public String generateStub(JavaType type) {
+    return generateStub(type, true);
+  }
+
+  // Outer.Inner does not resolve through an alias, nested types used across the cut are
+  // declared in a namespace named after their outer type
+  public String generateStub(JavaType type, boolean top) {
+    var str = new StringBuilder();
+    var declare = top ? "declare " : "";
+    if (stubUses.contains(type.classpath)) {
+      str.append(declare).append("type ").append(type.name);
+      if (!type.generics.isEmpty()) {
+        str.append("<");
+        for (var g : type.generics)
+          str.append(g.typeG).append(",");
+        str.deleteCharAt(str.length() - 1).append(">");
+      }
+      str.append(compact ? "=" : " = ").append("any;").append(nl());
+    }
+    var nested = new StringBuilder();
+    for (var c : type.classes)
+      if (stubOuters.contains(c.classpath))
+        nested.append(generateStub(c, false));
+    if (nested.length() != 0) {
+      str.append(declare).append("namespace ").append(type.name).append(compact ? "{" : " {\n");
+      indent(nested.toString(), str);
+      str.append("}").append(nl());
+    }
+    return str.toString();
+  }
+
+  // off by default, it changes how every single method interface is declared
+  public boolean functional = false;
+  // interfaces some type of the model implements or extends, a class cannot implement a function
+  // type and a java object would no longer match one
+  public Set<String> implemented = new HashSet<>();
+
+  public static boolean objectMethod(JavaMethod m) {
+    return m.name.equals("equals") && m.paramaters.size() == 1
+        || (m.name.equals("hashCode") || m.name.equals("toString")) && m.paramaters.isEmpty();
+  }
+
+  public static boolean abstractMethod(JavaMethod m) {
+    return m.modifiers.contains(JavaModifier.Abstract) && !m.modifiers.contains(JavaModifier.Static)
+        && !m.synthetic && !objectMethod(m);
+  }
+
+  public static boolean hasAbstract(JavaType type) {
+    for (var m : type.methods)
+      if (abstractMethod(m))
+        return true;
+    for (var i : type.interfaces)
+      if (i.type != null && hasAbstract(i.type))
+        return true;
+    return false;
+  }
+
+  // only interfaces declaring their single abstract method themselves, an inherited one would
+  // need the super interface generics substituted. nested types need a namespace body
+  public JavaMethod functionalMethod(JavaType type) {
+    if (!functional || !type.isInterface || type.inner || !type.classes.isEmpty()
+        || implemented.contains(type.classpath))
+      return null;
+    JavaMethod res = null;
+    for (var m : type.methods) {
+      if (!abstractMethod(m))
+        continue;
+      if (res != null)
+        return null;
+      res = m;
+    }
+    if (res == null)
+      return null;
+    for (var i : type.interfaces)
+      if (i.type != null && hasAbstract(i.type))
+        return null;
+    if (type.classRef != null) {
+      // filtered super interfaces have no members in the model
+      int count = 0;
+      for (var m : type.classRef.getMethods()) {
+        if (!Modifier.isAbstract(m.getModifiers()) || m.isSynthetic())
+          continue;
+        if (m.getName().equals("equals") && m.getParameterCount() == 1
+            || (m.getName().equals("hashCode") || m.getName().equals("toString"))
+                && m.getParameterCount() == 0)
+          continue;
+        count++;
+      }
+      if (count != 1)
+        return null;
+    }
+    return res;
+  }
+
+  public String generateFunctional(JavaType type, JavaMethod method) {
+    var eq = compact ? "=" : " = ";
+    var str = new StringBuilder();
+    str.append(comment(cinfo.get(type))).append("declare type ").append(type.name)
+        .append(generateGenerics(type.generics, true)).append(eq)
+        .append(generateGenerics(method.generics, true))
+        .append(generateParamaters(method.paramaters, method.varArgs))
+        .append(compact ? "=>" : " => ").append(generateResult(method)).append(";").append(nl());
+    return str.toString();
+  }
+
+  public boolean interfaces = false;
+  // java enums are objects at runtime, so they stay classes (a ts enum would make the constants
+  // numbers and drop name(), ordinal(), ...). the flag only declares the constants readonly
+  public boolean enums = false;
+
+  public static boolean isStatic(Set<JavaModifier> modifiers) {
+    return modifiers.contains(JavaModifier.Static);
+  }
+
+  // inner classes cannot live in a ts interface body
+  public boolean emitInterface(JavaType type) {
+    return interfaces && type.isInterface && !type.inner && type.classes.isEmpty();
+  }
+
+  public boolean hasStatics(JavaType type) {
+    for (var f : fields(type))
+      if (isStatic(f.modifiers))
+        return true;
+    for (var m : type.methods)
+      if (isStatic(m.modifiers) && !m.synthetic && !m.name.contains("$"))
+        return true;
+    return false;
+  }
+
+  public String generateInterface(JavaType type) {
+    var in = compact ? "" : "  ";
+    var str = new StringBuilder();
+    str.append(comment(cinfo.get(type))).append("declare interface ").append(type.name)
+        .append(generateGenerics(type.generics, true));
+    if (!type.interfaces.isEmpty()) {
+      str.append(" extends ");
+      for (var i : type.interfaces)
+        str.append(generateTypeUse(i)).append(",");
+      str.deleteCharAt(str.length() - 1);
+    }
+    str.append(compact ? "{" : " {\n");
+    var members = new ArrayList<JavaMethod>();
+    var statics = new ArrayList<JavaMethod>();
+    for (var m : methods(type))
+      (isStatic(m.modifiers) ? statics : members).add(m);
+    generateMethods(members, in, str, "");
+    str.append("}").append(nl());
+    if (!hasStatics(type))
+      return str.toString();
+    // java interface constants and static methods go to a merged namespace
+    str.append("declare namespace ").append(type.name).append(compact ? "{" : " {\n");
+    for (var f : fields(type)) {
+      if (!isStatic(f.modifiers))
+        continue;
+      str.append(in).append(comment(finfo.get(f))).append("const ")
+          .append(f.name.replace("constructor", "_constructor")).append(":")
+          .append(generateTypeUse(f.type)).append(f.nullable ? "|null;" : ";").append(nl());
+    }
+    generateMethods(statics, in, str, "function ");
+    str.append("}").append(nl());
+    return str.toString();
+  }
+
+  public String generateBody(JavaType type) {
+    return located(type.classpath, () -> generateBodyIn(type));
+  }
+
+  public String generateBodyIn(JavaType type) {
+    if (stubs.contains(type.classpath))
+      return generateStub(type);
+    var su = cmap.getOrDefault(type.classpath, null);
+    if (su != null)
+      return su;
+    var method = functionalMethod(type);
+    if (method != null)
+      return generateFunctional(type, method);
+    if (emitInterface(type))
+      return generateInterface(type);
+    return generateType(type);
+  }
+
+  // type aliases have no runtime value to bind a global const to
+  public boolean isValue(JavaType type) {
+    if (stubs.contains(type.classpath))
+      return false;
+    if (cmap.containsKey(type.classpath) || noG.getOrDefault(type.classpath, false))
+      return true;
+    if (functionalMethod(type) != null)
+      return false;
+    return !emitInterface(type) || hasStatics(type);
+  }
+
   public String generateModule(TSModule module, JavaType type) {
     var str = new StringBuilder();
     String obj = getType(type, true);
@@ -359,16 +835,15 @@ public class TSGenerator implements Generator {
     if (split.length != 0)
       for (var s : split) {
         if (!s.isEmpty())
-          str.append("declare namespace ").append(s).append(" {\n");
+          str.append("declare namespace ").append(s).append(compact ? "{" : " {\n");
       }
-    var su = cmap.getOrDefault(type.classpath, null);
     if (!module.name.isEmpty())
-      addSpaces(su == null ? generateType(type) : su, str);
+      indent(generateBody(type), str);
     else
-      str.append(su == null ? generateType(type) : su);
+      str.append(generateBody(type));
     for (var s : split) {
       if (!s.isEmpty())
-        str.append("}\n");
+        str.append("}").append(nl());
     }
     return str.toString();
   }
@@ -377,42 +852,415 @@ public class TSGenerator implements Generator {
 
   }
 
-  public Map<String, Boolean> usedName = new HashMap<>();
+  // kept here instead of on the type so the parsed model stays shared between generators,
+  // types that never went through modifierJavaType (inner classes) keep every field
+  public Map<JavaType, List<JavaField>> fieldsMap = new ConcurrentHashMap<>();
+
+  public List<JavaField> fields(JavaType type) {
+    return fieldsMap.getOrDefault(type, type.fields);
+  }
 
   public void modifierJavaType(JavaType type) {
-    usedName.clear();
+    var usedName = new HashSet<String>();
     for (var m : type.methods) {
       modifierMethod(m);
-      usedName.put(m.name, true);
+      usedName.add(m.name);
     }
     var tmp = new ArrayList<JavaField>();
     for (var f : type.fields) {
-      if (usedName.getOrDefault(f.name, false)) {
+      if (usedName.contains(f.name)) {
         continue;
       }
       tmp.add(f);
     }
-    type.fields = tmp;
+    fieldsMap.put(type, tmp);
   }
 
   public String coustom = "declare type Class<T> = new (...args: any[]) => T;\n";
 
-  @Override
-  public String generate(Map<String, JavaType> map, List<JavaType> values) {
+  public boolean parallel = false;
+  public ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  // info callbacks run on the pool threads when parallel is set
+  public List<String> render(int size, IntFunction<String> func) {
+    if (!parallel) {
+      var res = new ArrayList<String>();
+      for (int i = 0; i < size; i++)
+        res.add(func.apply(i));
+      return res;
+    }
+    return pool.submit(() -> IntStream.range(0, size).parallel().mapToObj(func).toList()).join();
+  }
+
+  public List<String> generateModules(List<JavaType> values) {
+    var modules = new ArrayList<TSModule>();
+    for (var v : values) {
+      modifierJavaType(v);
+      modules.add(getModule(getModulePath(v)));
+    }
+    return render(values.size(), i -> generateModule(modules.get(i), values.get(i)));
+  }
+
+  public List<String> generateBodies(List<JavaType> values) {
+    for (var v : values)
+      modifierJavaType(v);
+    return render(values.size(), i -> generateBody(values.get(i)));
+  }
+
+  public boolean merged = false;
+
+  // namespaces follow getType so prefix and renames match the per-type output
+  public TSModule mergeModules(List<JavaType> values) {
+    var top = new TSModule();
+    for (var v : values) {
+      var split = getType(v, true).split("\\.");
+      var now = top;
+      for (int i = 0; i < split.length - 1; i++) {
+        if (split[i].isEmpty())
+          continue;
+        var tmp = now.modules.getOrDefault(split[i], null);
+        if (tmp == null) {
+          tmp = new TSModule(split[i]);
+          now.modules.put(split[i], tmp);
+        }
+        now = tmp;
+      }
+      now.types.put(split[split.length - 1], v.classpath);
+    }
+    return top;
+  }
+
+  public void generateMerged(TSModule module, Map<String, String> bodies, String indent,
+      StringBuilder str) {
+    for (var sub : module.modules.values()) {
+      str.append(indent).append("declare namespace ").append(sub.name)
+          .append(compact ? "{" : " {\n");
+      generateMerged(sub, bodies, compact ? "" : indent + "  ", str);
+      str.append(indent).append("}").append(nl());
+    }
+    for (var type : module.types.values()) {
+      var body = bodies.get(type);
+      if (body == null || body.isEmpty())
+        continue;
+      if (compact) {
+        str.append(body);
+        continue;
+      }
+      for (var line : body.split("\n"))
+        str.append(indent).append(line).append("\n");
+    }
+  }
+
+  public String generateMerged(List<JavaType> values, List<String> list) {
+    var bodies = new HashMap<String, String>();
+    for (int i = 0; i < values.size(); i++)
+      bodies.put(values.get(i).classpath, list.get(i));
+    var str = new StringBuilder();
+    generateMerged(mergeModules(values), bodies, "", str);
+    return str.toString();
+  }
+
+  public String generateMerged(List<JavaType> values) {
+    return generateMerged(values, generateBodies(values));
+  }
+
+  public Set<String> roots = new LinkedHashSet<>();
+  public Set<String> stubs = new HashSet<>();
+  // what the kept types reference, a stub declares only these and the outers of nested ones
+  public Set<String> stubUses = new HashSet<>();
+  public Set<String> stubOuters = new HashSet<>();
+
+  // facts functional and dropRedundant read from the whole model, has to run again once the
+  // model is complete when types are rendered while it still grows (see Pipeline)
+  public void index(Map<String, JavaType> map) {
+    inheritedMap.clear();
+    implemented.clear();
+    for (var v : map.values()) {
+      if (v.interfaces == null)
+        continue;
+      for (var i : v.interfaces)
+        if (i.type != null)
+          implemented.add(i.type.classpath);
+    }
+  }
+
+  // with roots set, only types reachable through their public api are declared, types that
+  // are referenced anyway (private members, ...) become opaque aliases
+  public List<JavaType> prepare(Map<String, JavaType> map, List<JavaType> values) {
     this.map = map;
     initModules();
+    stubs.clear();
+    stubUses.clear();
+    stubOuters.clear();
+    fieldsMap.clear();
+    hoisted.clear();
+    hoistKeys.clear();
+    hoistCounts.clear();
+    simplified.clear();
+    index(map);
+    if (!roots.isEmpty())
+      values = shake(values);
+    if (!exclude.isEmpty()) {
+      var res = new ArrayList<JavaType>();
+      for (var v : values)
+        if (!exclude.contains(v.classpath))
+          res.add(v);
+      values = res;
+    }
+    // stubs are only opaque here, a delta has to be able to declare them
+    emitted.clear();
+    for (var v : values)
+      if (!stubs.contains(v.classpath))
+        emitted.add(v.classpath);
+    if (hoist)
+      hoist(values, aliasPrefix());
+    return values;
+  }
+
+  // delta output: types in exclude are declared by a shared base, see writeManifest.
+  // the base already has coustom, hoisted aliases get a prefix of their own (see aliasPrefix)
+  public Set<String> exclude = new HashSet<>();
+  public List<String> baseReferences = new ArrayList<>();
+  public List<String> emitted = new ArrayList<>();
+
+  public void writeManifest(Path file) throws IOException {
+    Files.write(file, emitted, StandardCharsets.UTF_8);
+  }
+
+  public static Set<String> readManifest(Path file) throws IOException {
+    return new LinkedHashSet<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+  }
+
+  public String generateHeader() {
     var str = new StringBuilder();
-    str.append(coustom);
+    for (var ref : baseReferences)
+      str.append(reference(ref));
+    if (exclude.isEmpty())
+      str.append(coustom);
+    return str.append(generateHoisted()).toString();
+  }
+
+  public List<JavaType> shake(List<JavaType> values) {
+    var reach = Dependencies.reachable(map, roots);
+    var used = new HashSet<String>();
     for (var v : values) {
-      modifierJavaType(v);
-      str.append(generateModule(getModule(getModulePath(v)), v));
+      if (!reach.contains(v.classpath))
+        continue;
+      for (var use : Dependencies.uses(v)) {
+        used.add(Dependencies.topLevel(use.classpath));
+        var cp = use.classpath;
+        stubUses.add(cp);
+        // a nested use and each type enclosing it
+        if (cp.indexOf('$') >= 0)
+          for (int i = cp.length(); i >= 0; i = cp.lastIndexOf('$', i - 1))
+            stubOuters.add(cp.substring(0, i));
+      }
+    }
+    var res = new ArrayList<JavaType>();
+    for (var v : values) {
+      if (reach.contains(v.classpath)) {
+        res.add(v);
+      } else if (used.contains(v.classpath)) {
+        stubs.add(v.classpath);
+        res.add(v);
+      }
+    }
+    return res;
+  }
+
+  public boolean hoist = false;
+  public int hoistCount = 4;
+  public int hoistLength = 32;
+  public static final String defaultHoistPrefix = "_G";
+  public String hoistPrefix = defaultHoistPrefix;
+  // rendered instantiation to alias, uses that render the same share one alias
+  public Map<String, String> hoisted = new LinkedHashMap<>();
+  // the rendering of every instantiation seen by the dry run of hoist, read by the real one
+  public Map<JavaTypeUse, String> hoistKeys = new IdentityHashMap<>();
+  // how often the dry run emitted each rendering, in the order they were first met
+  public Map<String, Integer> hoistCounts = new LinkedHashMap<>();
+  public boolean recording = false;
+  // above 0 while the dry run renders only to compare (overloads, inherited signatures)
+  public int probing = 0;
+
+  public String probe(Supplier<String> func) {
+    if (!recording)
+      return func.get();
+    probing++;
+    try {
+      return func.get();
+    } finally {
+      probing--;
+    }
+  }
+
+  // a delta with the default prefix would redeclare the aliases of its base, so it gets one
+  // derived from what it declares
+  public String aliasPrefix() {
+    if (exclude.isEmpty() || !hoistPrefix.equals(defaultHoistPrefix))
+      return hoistPrefix;
+    return hoistPrefix + Integer.toHexString(emitted.hashCode()) + "_";
+  }
+
+  public static boolean closed(JavaTypeUse use) {
+    if ("?".equals(use.typeG))
+      return true;
+    if (use.typeG != null)
+      return false;
+    if (use.typeC != null)
+      return closed(use.typeC);
+    for (var g : use.generics)
+      if (!closed(g))
+        return false;
+    return true;
+  }
+
+  public static boolean hoistable(JavaTypeUse use) {
+    return use.type != null && use.generics != null && !use.generics.isEmpty() && closed(use);
+  }
+
+  // closed instantiations emitted at least hoistCount times become shared aliases. the bodies
+  // are rendered once and every use that generateBody writes is counted, comments are not read
+  public void hoist(List<JavaType> values, String prefix) {
+    hoistKeys.clear();
+    hoistCounts.clear();
+    recording = true;
+    try {
+      for (var v : values) {
+        modifierJavaType(v);
+        generateBody(v);
+      }
+    } finally {
+      recording = false;
+    }
+    var i = 0;
+    for (var entry : hoistCounts.entrySet()) {
+      if (entry.getValue() >= hoistCount && entry.getKey().length() >= hoistLength)
+        hoisted.put(entry.getKey(), prefix + i++);
+    }
+    // the dry run saw the full renderings
+    inheritedMap.clear();
+    simplified.clear();
+  }
+
+  public String generateHoisted() {
+    var uses = new HashMap<String, JavaTypeUse>();
+    for (var entry : hoistKeys.entrySet())
+      uses.putIfAbsent(entry.getValue(), entry.getKey());
+    var str = new StringBuilder();
+    for (var entry : hoisted.entrySet())
+      str.append("declare type ").append(entry.getValue()).append(compact ? "=" : " = ")
+          .append(located(entry.getValue(), () -> renderTypeUse(uses.get(entry.getKey()), false)))
+          .append(";").append(nl());
+    return str.toString();
+  }
+
+  // types that get a global const, scripts have to bind these at runtime
+  public List<JavaType> globals(List<JavaType> values) {
+    var res = new ArrayList<JavaType>();
+    for (var v : values) {
+      if (!trefs.containsKey(v.classpath) && isValue(v))
+        res.add(v);
     }
+    return res;
+  }
+
+  public String generateGlobals(List<JavaType> values) {
+    var str = new StringBuilder();
+    var eq = compact ? "=" : " = ";
+    var consts = new HashSet<>(globals(values));
     for (var v : values) {
-      var t = trefs.getOrDefault(v.classpath, null);
-      if (t == null)
-        str.append("declare const ").append(v.name).append(" = ").append(getType(v,true)).append(";\n");
-      str.append("declare type ").append(v.name).append(" = ").append(getType(v,true)).append(";\n");
+      if (stubs.contains(v.classpath))
+        continue;
+      if (consts.contains(v))
+        str.append("declare const ").append(v.name).append(eq).append(getType(v, true)).append(";")
+            .append(nl());
+      str.append("declare type ").append(v.name).append(eq).append(getType(v, true)).append(";")
+          .append(nl());
     }
     return str.toString();
   }
+
+  @Override
+  public String generate(Map<String, JavaType> map, List<JavaType> values) {
+    values = prepare(map, values);
+    var str = new StringBuilder();
+    str.append(generateHeader());
+    if (merged)
+      str.append(generateMerged(values));
+    else
+      for (var s : generateModules(values))
+        str.append(s);
+    str.append(generateGlobals(values));
+    return str.toString();
+  }
+
+  public String baseFile = "_base.d.ts";
+  public String indexFile = "index.d.ts";
+
+  public String fileName(String pkg) {
+    return (pkg.isEmpty() ? "_default" : pkg) + ".d.ts";
+  }
+
+  public String reference(String file) {
+    return "/// <reference path=\"" + file + "\" />\n";
+  }
+
+  // one file per java package, the index references every package and holds the globals
+  public Map<String, String> generateFiles(Map<String, JavaType> map, List<JavaType> values) {
+    return generateFiles(map, values, null);
+  }
+
+  // only the packages in only are rendered (all when null), the base and index are always made
+  public Map<String, String> generateFiles(Map<String, JavaType> map, List<JavaType> values,
+      Set<String> only) {
+    values = prepare(map, values);
+    var packages = new LinkedHashMap<String, List<Integer>>();
+    for (int i = 0; i < values.size(); i++)
+      packages.computeIfAbsent(Dependencies.packageOf(values.get(i)), k -> new ArrayList<>())
+          .add(i);
+    var rendered = new ArrayList<JavaType>();
+    var slots = new HashMap<Integer, Integer>();
+    for (var entry : packages.entrySet()) {
+      if (only != null && !only.contains(entry.getKey()))
+        continue;
+      for (var i : entry.getValue()) {
+        slots.put(i, rendered.size());
+        rendered.add(values.get(i));
+      }
+    }
+    var list = merged ? generateBodies(rendered) : generateModules(rendered);
+    var files = new LinkedHashMap<String, String>();
+    files.put(baseFile, generateHeader());
+    var index = new StringBuilder();
+    for (var entry : packages.entrySet()) {
+      index.append(reference(fileName(entry.getKey())));
+      if (only != null && !only.contains(entry.getKey()))
+        continue;
+      var refs = new TreeSet<String>();
+      var types = new ArrayList<JavaType>();
+      var parts = new ArrayList<String>();
+      for (var i : entry.getValue()) {
+        types.add(values.get(i));
+        parts.add(list.get(slots.get(i)));
+        for (var use : Dependencies.uses(values.get(i))) {
+          var pkg = Dependencies.packageOf(use);
+          if (!pkg.equals(entry.getKey()) && packages.containsKey(pkg))
+            refs.add(fileName(pkg));
+        }
+      }
+      var str = new StringBuilder(reference(baseFile));
+      for (var ref : refs)
+        str.append(reference(ref));
+      if (merged)
+        str.append(generateMerged(types, parts));
+      else
+        for (var part : parts)
+          str.append(part);
+      files.put(fileName(entry.getKey()), str.toString());
+    }
+    index.append(generateGlobals(values));
+    files.put(indexFile, index.toString());
+    return files;
+  }
 }
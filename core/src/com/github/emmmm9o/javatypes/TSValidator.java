@@ -0,0 +1,259 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.util.*;
+
+/**
+ * Checks that every name used as a type in generated declarations is declared somewhere in the
+ * scanned files. Names resolve like typescript does: the first part is looked up from the
+ * enclosing namespace outwards, the rest has to be declared under it. Undotted names in a type
+ * position (aliases, stubs, ...) have to be declared, a type parameter or a builtin. It only
+ * understands what TSGenerator emits, it is not a typescript parser.
+ */
+public class TSValidator {
+  public static class Reference {
+    public String file;
+    public int line;
+    public String name;
+    // the namespace the name is used in, names resolve from there outwards
+    public String scope;
+
+    public Reference(String file, int line, String name, String scope) {
+      this.file = file;
+      this.line = line;
+      this.name = name;
+      this.scope = scope;
+    }
+  }
+
+  public static final Set<String> keywords =
+      Set.of("namespace", "class", "interface", "enum", "type", "const", "let", "function");
+  public static final Set<String> builtins = Set.of("any", "number", "string", "boolean", "void",
+      "null", "undefined", "never", "unknown", "object", "symbol", "bigint", "this", "true",
+      "false", "new", "typeof", "keyof", "readonly");
+  // tokens after which a name is a type, inside a type argument list "<" and "," are too
+  public static final Set<String> typed = Set.of(":", "=>", "|", "&", "extends", "implements");
+
+  public Set<String> declared = new HashSet<>();
+  public List<Reference> references = new ArrayList<>();
+  public List<String> problems = new ArrayList<>();
+
+  public static boolean identStart(char c) {
+    return Character.isLetter(c) || c == '_' || c == '$';
+  }
+
+  public static boolean identPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+
+  public static String qualify(List<String> scopes, String name) {
+    var str = new StringBuilder();
+    for (var s : scopes) {
+      if (s == null)
+        continue;
+      str.append(s).append(".");
+    }
+    return str.append(name).toString();
+  }
+
+  public void declare(List<String> scopes, String name) {
+    var parts = name.split("\\.");
+    var now = "";
+    for (var part : parts) {
+      now = now.isEmpty() ? part : now + "." + part;
+      declared.add(qualify(scopes, now));
+    }
+  }
+
+  public boolean generic(Set<String> local, List<Set<String>> frames, String name) {
+    if (local.contains(name))
+      return true;
+    for (var f : frames)
+      if (f.contains(name))
+        return true;
+    return false;
+  }
+
+  public void scan(String file, String src) {
+    var scopes = new ArrayList<String>();
+    // type parameters of the enclosing classes, and of the statement being read
+    var frames = new ArrayList<Set<String>>();
+    var local = new HashSet<String>();
+    // open ( and < , a < is 'd' when it declares type parameters and 'a' when it passes them
+    var nest = new ArrayDeque<Character>();
+    String pending = null;
+    String keyword = null;
+    String last = null;
+    var prev = "";
+    var alias = false;
+    var ref = false;
+    int line = 1;
+    int i = 0;
+    int n = src.length();
+    while (i < n) {
+      char c = src.charAt(i);
+      if (c == '\n') {
+        line++;
+        i++;
+        continue;
+      }
+      if (Character.isWhitespace(c)) {
+        i++;
+        continue;
+      }
+      if (c == '/' && i + 1 < n && src.charAt(i + 1) == '*') {
+        int end = src.indexOf("*/", i + 2);
+        end = end < 0 ? n : end + 2;
+        for (int j = i; j < end; j++)
+          if (src.charAt(j) == '\n')
+            line++;
+        i = end;
+        continue;
+      }
+      if (c == '/' && i + 1 < n && src.charAt(i + 1) == '/') {
+        while (i < n && src.charAt(i) != '\n')
+          i++;
+        continue;
+      }
+      if (c == '"' || c == '\'' || c == '`') {
+        i++;
+        while (i < n && src.charAt(i) != c) {
+          if (src.charAt(i) == '\\')
+            i++;
+          i++;
+        }
+        i++;
+        continue;
+      }
+      if (identStart(c)) {
+        var str = new StringBuilder();
+        var malformed = false;
+        while (true) {
+          while (i < n && identPart(src.charAt(i)))
+            str.append(src.charAt(i++));
+          if (i >= n || src.charAt(i) != '.' || src.startsWith("...", i))
+            break;
+          str.append('.');
+          i++;
+          if (i >= n || !identStart(src.charAt(i))) {
+            malformed = true;
+            break;
+          }
+        }
+        var token = str.toString();
+        var list = nest.isEmpty() ? ' ' : nest.peek();
+        var listed = prev.equals("<") || prev.equals(",");
+        // a name followed by : is a parameter or a field
+        int j = i;
+        while (j < n && src.charAt(j) == ' ')
+          j++;
+        var named = j < n && (src.charAt(j) == ':' || src.charAt(j) == '?');
+        ref = false;
+        if (malformed) {
+          problems.add(file + ":" + line + ": malformed name " + token);
+        } else if (token.equals("class") && prev.equals("=") && last != null) {
+          // inner classes are emitted as Name= class
+          declare(scopes, last);
+          pending = last;
+        } else if (keyword != null) {
+          if (!(keyword.equals("class") && (token.equals("extends") || token.equals("implements")))) {
+            declare(scopes, token);
+            if (!keyword.equals("type") && !keyword.equals("const") && !keyword.equals("let")
+                && !keyword.equals("function"))
+              pending = token;
+            alias = keyword.equals("type");
+          }
+          keyword = null;
+        } else if (keywords.contains(token) && i < n && src.charAt(i) == ' '
+            && i + 1 < n && identStart(src.charAt(i + 1))) {
+          keyword = token;
+        } else if (list == 'd' && listed) {
+          local.add(token);
+        } else if (!named && (typed.contains(prev) || list == 'a' && listed
+            || alias && prev.equals("=") || token.indexOf('.') >= 0)) {
+          ref = true;
+          if (!builtins.contains(token) && !generic(local, frames, token))
+            references.add(new Reference(file, line, token, qualify(scopes, "")));
+        }
+        last = token;
+        prev = token;
+        continue;
+      }
+      if (src.startsWith("...", i)) {
+        prev = "...";
+        i += 3;
+        continue;
+      }
+      if (src.startsWith("=>", i)) {
+        prev = "=>";
+        i += 2;
+        continue;
+      }
+      if (c == '{') {
+        scopes.add(pending);
+        frames.add(local);
+        local = new HashSet<>();
+        pending = null;
+        alias = false;
+      } else if (c == '}') {
+        if (!scopes.isEmpty()) {
+          scopes.remove(scopes.size() - 1);
+          frames.remove(frames.size() - 1);
+        }
+      } else if (c == ';') {
+        local.clear();
+        alias = false;
+      } else if (c == '<') {
+        // after a type it passes arguments, after a declared name it declares parameters
+        nest.push(ref ? 'a' : 'd');
+      } else if (c == '(' || c == '[') {
+        nest.push(c);
+      } else if ((c == '>' || c == ')' || c == ']') && !nest.isEmpty()) {
+        nest.pop();
+      }
+      if (c != '>')
+        ref = false;
+      prev = String.valueOf(c);
+      i++;
+    }
+  }
+
+  // the first part of a name resolves in the innermost namespace declaring it
+  public boolean resolve(Reference ref) {
+    var dot = ref.name.indexOf('.');
+    var first = dot < 0 ? ref.name : ref.name.substring(0, dot);
+    var scope = ref.scope;
+    while (true) {
+      if (declared.contains(scope + first))
+        return declared.contains(scope + ref.name);
+      if (scope.isEmpty())
+        return false;
+      var d = scope.lastIndexOf('.', scope.length() - 2);
+      scope = d < 0 ? "" : scope.substring(0, d + 1);
+    }
+  }
+
+  // call after every file is scanned, files may reference each other
+  public List<String> validate() {
+    var seen = new HashSet<String>();
+    for (var ref : references) {
+      if (resolve(ref) || !seen.add(ref.file + ref.name))
+        continue;
+      problems.add(ref.file + ":" + ref.line + ": unresolved " + ref.name);
+    }
+    return problems;
+  }
+
+  public static List<String> validate(String src) {
+    var validator = new TSValidator();
+    validator.scan("", src);
+    return validator.validate();
+  }
+
+  public static List<String> validate(Map<String, String> files) {
+    var validator = new TSValidator();
+    for (var entry : files.entrySet())
+      validator.scan(entry.getKey(), entry.getValue());
+    return validator.validate();
+  }
+}
@@ -0,0 +1,21 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.JavaTypes.*;
+
+/**
+ * A generator whose output is text, written as utf-8.
+ */
+public interface TextGenerator extends Generator {
+  public String generate(Map<String, JavaType> maps, List<JavaType> values);
+
+  @Override
+  public default void write(Map<String, JavaType> maps, List<JavaType> values, OutputStream out)
+      throws IOException {
+    out.write(generate(maps, values).getBytes(StandardCharsets.UTF_8));
+  }
+}
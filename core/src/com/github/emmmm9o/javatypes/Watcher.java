@@ -0,0 +1,169 @@
+/* (C) 2025 */
+package com.github.emmmm9o.javatypes;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the class directories and jars of a config and regenerates once a burst of changes
+ * has settled. A burst that changed no class fingerprint (see Incremental) renders nothing, and
+ * only files whose content changed are written.
+ */
+public class Watcher {
+  public Daemon daemon;
+  // quiet time before a burst of changes counts as done, a build writes many files
+  public long debounce = 300;
+  public PrintStream log = System.err;
+
+  public WatchService service;
+  public Map<WatchKey, Path> keys = new HashMap<>();
+  public Set<Path> jars = new HashSet<>();
+
+  public Watcher(Config config) {
+    daemon = new Daemon(config);
+  }
+
+  public void register(Path dir) throws IOException {
+    try (var dirs = Files.walk(dir)) {
+      for (var d : (Iterable<Path>) dirs::iterator)
+        if (Files.isDirectory(d))
+          keys.put(d.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), d);
+    } catch (NoSuchFileException | UncheckedIOException err) {
+      // deleted while walking, its parent reports it when it comes back
+    }
+  }
+
+  // the directory a classpath entry needs, a jar is replaced as a whole so it is the one the
+  // jar lives in
+  public Path target(Path path) {
+    return jars.contains(path) ? path.getParent() : path;
+  }
+
+  // a target that is gone (a clean build deletes the class directories) is watched through its
+  // nearest existing parent, which reports when it is created again
+  public void watch(Path path) throws IOException {
+    var target = target(path);
+    var dir = target;
+    while (dir != null) {
+      if (!Files.isDirectory(dir)) {
+        dir = dir.getParent();
+        continue;
+      }
+      if (dir.equals(target) && !jars.contains(path)) {
+        register(dir);
+        return;
+      }
+      try {
+        keys.put(dir.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+      } catch (NoSuchFileException err) {
+        // deleted since the check, go up further
+        dir = dir.getParent();
+        continue;
+      }
+      // the next directory down may have been created before the parent was watched
+      if (dir.equals(target))
+        return;
+      var next = dir.resolve(target.getName(dir.getNameCount()));
+      if (!Files.isDirectory(next))
+        return;
+      dir = target;
+    }
+  }
+
+  public void register() throws IOException {
+    for (var path : daemon.config.classpath) {
+      if (Files.isRegularFile(path) || path.toString().endsWith(".jar"))
+        jars.add(path);
+      watch(path);
+    }
+  }
+
+  public boolean inRoot(Path path) {
+    for (var root : daemon.config.classpath)
+      if (!jars.contains(root) && path.startsWith(root))
+        return true;
+    return false;
+  }
+
+  // returns true if one of the events touched a class file or a watched jar
+  public boolean handle(WatchKey key) throws IOException {
+    var dir = keys.get(key);
+    var relevant = false;
+    var lost = false;
+    for (var event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        // events are gone, directories created meanwhile may not be watched yet
+        relevant = true;
+        lost = true;
+        continue;
+      }
+      var path = dir.resolve((Path) event.context());
+      if (jars.contains(path) || path.toString().endsWith(".class")) {
+        relevant = true;
+      } else if (inRoot(path)) {
+        if (event.kind() == ENTRY_CREATE && Files.isDirectory(path))
+          register(path);
+        relevant = true;
+      } else if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+        // a parent of a deleted target came back, go down to the target
+        for (var entry : daemon.config.classpath) {
+          if (target(entry).startsWith(path)) {
+            watch(entry);
+            relevant = true;
+          }
+        }
+      }
+    }
+    if (!key.reset()) {
+      keys.remove(key);
+      lost = true;
+    }
+    if (lost)
+      for (var entry : daemon.config.classpath)
+        watch(entry);
+    return relevant;
+  }
+
+  public void write(Set<String> only) throws IOException {
+    long time = System.nanoTime();
+    var files = daemon.config.write(daemon.generator, daemon.parser, only);
+    // keeps a later one shot run with the same cache incremental
+    if (daemon.config.cache != null)
+      daemon.incremental.save(daemon.config.cache);
+    for (var f : daemon.failed)
+      log.println("skipped " + f);
+    for (var s : daemon.generator.simplified)
+      log.println("simplified " + s);
+    log.println(daemon.incremental.changed.size() + " classes changed, " + files.size()
+        + " files written in " + (System.nanoTime() - time) / 1000000 + "ms");
+  }
+
+  public void run() throws IOException, InterruptedException {
+    service = FileSystems.getDefault().newWatchService();
+    try {
+      register();
+      daemon.load();
+      write(null);
+      while (true) {
+        var relevant = handle(service.take());
+        WatchKey key;
+        while ((key = service.poll(debounce, TimeUnit.MILLISECONDS)) != null)
+          relevant |= handle(key);
+        if (!relevant)
+          continue;
+        try {
+          write(daemon.reload());
+        } catch (IOException | RuntimeException | LinkageError err) {
+          // a build that is half written fails here, the next change retries
+          log.println("error " + err);
+        }
+      }
+    } finally {
+      service.close();
+    }
+  }
+}
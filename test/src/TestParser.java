@@ -14,7 +14,7 @@ import arc.*;
 public class TestParser {
 
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws Exception {
 
     var parser = new Parser();
     parser.filter = clazz -> clazz.getName().contains("java") || clazz.getName().contains("rhino");
@@ -27,6 +27,6 @@ public class TestParser {
     parser.parse(Icon.class);
     parser.parse(World.class);
     parser.parse(Call.class);
-    System.out.println(TestUtil.toJson(parser.classMap.values()));
+    new JsonGenerator().write(parser.classMap, parser.values, System.out);
   }
 }
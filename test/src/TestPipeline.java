@@ -0,0 +1,61 @@
+/* (C) 2025 */
+import java.io.*;
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.*;
+
+import arc.util.*;
+
+public class TestPipeline {
+  static Parser parser() {
+    var parser = new Parser();
+    parser.filter = clazz -> clazz.getName().contains("java") || clazz.getName().contains("rhino")
+        || clazz.getName().contains("jdk") || clazz.getName().contains("sun");
+    parser.fnull = f -> f.isAnnotationPresent(Nullable.class);
+    parser.pnull = f -> f.isAnnotationPresent(Nullable.class);
+    parser.mnull = f -> f.isAnnotationPresent(Nullable.class);
+    parser.initEnv();
+    parser.parse(java.lang.Object.class, true);
+    parser.parse(java.lang.Class.class, true);
+    return parser;
+  }
+
+  static TSGenerator generator() {
+    var generator = new TSGenerator();
+    generator.prefix = "Packages.";
+    return generator;
+  }
+
+  public static void main(String[] args) throws Exception {
+    var names = List.of("arc.Core", "arc.Events", "arc.Settings", "arc.files.Fi",
+        "arc.struct.Seq", "arc.util.Log", "arc.func.Cons", "arc.func.Prov", "arc.NotAClass");
+    var pipeline = new Pipeline(parser(), generator(), TestPipeline.class.getClassLoader());
+    var out = new BufferedWriter(new OutputStreamWriter(System.out));
+    pipeline.run(names, out);
+    for (var f : pipeline.failed)
+      System.err.println("skipped " + f);
+
+    // functional and dropRedundant depend on the whole model, the output has to stay the same
+    // as generate over the same classes
+    var generator = generator();
+    generator.functional = true;
+    generator.dropRedundant = true;
+    var str = new StringWriter();
+    new Pipeline(parser(), generator, TestPipeline.class.getClassLoader()).run(names, str);
+    var parser = parser();
+    int before = parser.values.size();
+    for (var name : names) {
+      try {
+        parser.parse(Class.forName(name));
+      } catch (ClassNotFoundException err) {
+      }
+    }
+    generator = generator();
+    generator.functional = true;
+    generator.dropRedundant = true;
+    var expected = generator.generate(parser.classMap,
+        new ArrayList<>(parser.values.subList(before, parser.values.size())));
+    System.err.println(str.toString().equals(expected) ? "pipeline matches generate"
+        : "pipeline differs from generate");
+  }
+}
@@ -0,0 +1,44 @@
+/* (C) 2025 */
+import java.util.*;
+
+import com.github.emmmm9o.javatypes.*;
+
+// only reachable through a private field of ShakeRoot, so it is cut to a stub
+class ShakeOuter {
+  public static class Inner<T> {
+    public static class Deep {
+    }
+  }
+
+  public static class Unused {
+  }
+}
+
+class ShakeRoot {
+  private ShakeOuter.Inner<String> inner;
+  private ShakeOuter.Inner.Deep deep;
+
+  public ShakeRoot self() {
+    return this;
+  }
+}
+
+public class TestShake {
+  public static void main(String[] args) {
+    var parser = new Parser();
+    parser.filter = clazz -> clazz.getName().startsWith("java");
+    parser.initEnv();
+    parser.parse(java.lang.Object.class, true);
+    parser.parse(java.lang.Class.class, true);
+    parser.parse(ShakeOuter.class);
+    parser.parse(ShakeRoot.class);
+    var generator = new TSGenerator();
+    generator.prefix = "Packages.";
+    generator.roots.add("ShakeRoot");
+    var output = generator.generate(parser.classMap, parser.values);
+    System.out.println(output);
+    // ShakeOuter.Inner and ShakeOuter.Inner.Deep have to resolve, Unused is not declared
+    for (var problem : TSValidator.validate(output))
+      System.out.println(problem);
+  }
+}
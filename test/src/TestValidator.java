@@ -0,0 +1,51 @@
+/* (C) 2025 */
+import com.github.emmmm9o.javatypes.*;
+
+import mindustry.*;
+import arc.*;
+import arc.util.*;
+
+public class TestValidator {
+  public static void main(String[] args) {
+    var parser = new Parser();
+    parser.filter = clazz -> clazz.getName().contains("java") || clazz.getName().contains("rhino")
+        || clazz.getName().contains("jdk") || clazz.getName().contains("sun");
+    parser.fnull = f -> f.isAnnotationPresent(Nullable.class);
+    parser.pnull = f -> f.isAnnotationPresent(Nullable.class);
+    parser.mnull = f -> f.isAnnotationPresent(Nullable.class);
+    parser.initEnv();
+    parser.parse(java.lang.Object.class, true);
+    parser.parse(java.lang.Class.class, true);
+    parser.parse(Vars.class);
+    parser.parse(Core.class);
+    var generator = new TSGenerator();
+    generator.prefix = "Packages.";
+    var output = generator.generate(parser.classMap, parser.values);
+    for (var problem : TSValidator.validate(output))
+      System.out.println(problem);
+
+    // names resolve from the enclosing namespace outwards, only Missing is reported
+    var src = """
+        declare type _G0 = Packages.a.B<string>;
+        declare namespace Packages {
+        declare namespace a {
+          declare class B<T> extends a.C implements Missing {
+            f?:_G0;
+            g?:T;
+            h<U>(_arg0:U):java.lang.Object;
+          }
+          declare class C extends java.lang.Object {
+          }
+        }
+        declare namespace java {
+        declare namespace lang {
+          declare class Object {
+          }
+        }
+        }
+        }
+        """;
+    for (var problem : TSValidator.validate(src))
+      System.out.println(problem);
+  }
+}